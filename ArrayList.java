@@ -0,0 +1,194 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class ArrayList<E> implements Iterable<E> {
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private Object[] arr;
+    private int size;
+    private int modCount;
+
+    public ArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ArrayList(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("Capacity: " + initialCapacity);
+        arr = new Object[initialCapacity];
+        size = 0;
+    }
+
+    public void add(E value) {
+        if (size == arr.length) {
+            grow(size + 1);
+        }
+        arr[size++] = value;
+        modCount++;
+    }
+
+    public void add(int index, E value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == arr.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(arr, index, arr, index + 1, size - index);
+        arr[index] = value;
+        size++;
+        modCount++;
+    }
+
+    public void addAll(ArrayList<? extends E> values) {
+        int count = values.size;
+        if (count == 0) return;
+        ensureCapacity(size + count);
+        System.arraycopy(values.arr, 0, arr, size, count);
+        size += count;
+        modCount++;
+    }
+
+    public void addAll(Iterable<? extends E> values) {
+        for (E value : values) {
+            add(value);
+        }
+    }
+
+    /** Grows the backing array so that it holds at least minCapacity elements without resizing. */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > arr.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /** Shrinks the backing array to the current size. */
+    public void trimToSize() {
+        if (arr.length > size) {
+            arr = Arrays.copyOf(arr, size);
+            modCount++;
+        }
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) throw new OutOfMemoryError("Required capacity: " + minCapacity);
+        int newCapacity = arr.length < MAX_CAPACITY / 2 ? Math.max(arr.length * 2, DEFAULT_CAPACITY) : MAX_CAPACITY;
+        arr = Arrays.copyOf(arr, Math.max(newCapacity, minCapacity));
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (E) arr[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E set(int index, E value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        E old = (E) arr[index];
+        arr[index] = value;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(arr, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(E value) {
+        return indexOf(value) >= 0;
+    }
+
+    public int indexOf(E value) {
+        for (int i = 0; i < size; i++) {
+            if (value == null ? arr[i] == null : value.equals(arr[i])) return i;
+        }
+        return -1;
+    }
+
+    public boolean remove(E value) {
+        int index = indexOf(value);
+        if (index < 0) return false;
+        fastRemove(index);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        E old = (E) arr[index];
+        fastRemove(index);
+        return old;
+    }
+
+    private void fastRemove(int index) {
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(arr, index + 1, arr, index, moved);
+        }
+        arr[--size] = null;
+        modCount++;
+    }
+
+    public Object[] toArray() {
+        return Arrays.copyOf(arr, size);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int cursor = 0;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (cursor >= size) throw new NoSuchElementException();
+                last = cursor++;
+                return (E) arr[last];
+            }
+
+            public void remove() {
+                if (last < 0) throw new IllegalStateException();
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                fastRemove(last);
+                cursor = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            sb.append(arr[i]);
+            if (i < size - 1) sb.append(", ");
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
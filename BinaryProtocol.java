@@ -0,0 +1,230 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact framing negotiated at login. A client that wants it sends
+ * NEGOTIATE right after its username line and waits for ACCEPTED; from then
+ * on both directions use frames of [opcode][length u16][payload]. Cards are
+ * single bytes holding the Card id, suits are single bytes (0-3) and hand
+ * versions are big-endian 32-bit ints ahead of the cards. Anything
+ * without a dedicated opcode travels as a TEXT frame (server) or
+ * TEXT_COMMAND frame (client) holding the usual line; only plain text with
+ * no command prefix becomes CHAT.
+ */
+public class BinaryProtocol {
+    static final String NEGOTIATE = "PROTOCOL:BINARY/1";
+    static final String ACCEPTED = "PROTOCOL_OK:BINARY/1";
+    static final int HEADER_LENGTH = 3;
+    static final int MAX_PAYLOAD = 0xFFFF;
+    static final int NO_CARD = 0xFF;
+
+    // client -> server
+    static final int START_GAME = 0x01;
+    static final int RESTART = 0x02;
+    static final int PLAY = 0x03;
+    static final int DRAW = 0x04;
+    static final int CHAT = 0x05;
+    static final int SUIT = 0x06;
+    static final int RESYNC = 0x07;
+    static final int SYNC_DELTA = 0x08;
+    static final int LEADERBOARD = 0x09;
+    static final int TEXT_COMMAND = 0x0A;
+
+    // server -> client
+    static final int TEXT = 0x40;
+    static final int HAND = 0x41;
+    static final int DRAWN_CARD = 0x42;
+    static final int CURRENT_CARD = 0x43;
+    static final int YOUR_TURN = 0x44;
+    static final int CHOOSE_SUIT = 0x45;
+    static final int CLEAR_CHAT = 0x46;
+    static final int GAME_OVER = 0x47;
+    static final int HAND_ADD = 0x48;
+    static final int HAND_REMOVE = 0x49;
+    static final int HAND_SYNC = 0x4A;
+
+    private static int cardCode(String card) {
+        int code = Card.parse(card);
+        return code == Card.NONE ? NO_CARD : code;
+    }
+
+    private static int suitCode(String suit) {
+        int code = Card.parseSuit(suit);
+        return code == Card.NONE ? NO_CARD : code;
+    }
+
+    public static byte[] frame(int opcode, byte[] payload, int length) {
+        if (length > MAX_PAYLOAD) throw new IllegalArgumentException("Frame payload too large: " + length);
+        byte[] frame = new byte[HEADER_LENGTH + length];
+        frame[0] = (byte) opcode;
+        frame[1] = (byte) (length >>> 8);
+        frame[2] = (byte) length;
+        System.arraycopy(payload, 0, frame, HEADER_LENGTH, length);
+        return frame;
+    }
+
+    private static byte[] frame(int opcode) {
+        return new byte[] {(byte) opcode, 0, 0};
+    }
+
+    private static byte[] cardFrame(int opcode, String card) {
+        return new byte[] {(byte) opcode, 0, 1, (byte) cardCode(card)};
+    }
+
+    /** Text longer than MAX_PAYLOAD bytes is cut at the last whole UTF-8 character that fits. */
+    private static byte[] textFrame(int opcode, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        if (length > MAX_PAYLOAD) {
+            length = MAX_PAYLOAD;
+            while (length > 0 && (bytes[length] & 0xC0) == 0x80) length--;
+        }
+        return frame(opcode, bytes, length);
+    }
+
+    private static byte[] handFrame(int opcode, String cardList, boolean versioned) {
+        int version = 0;
+        if (versioned) {
+            int colon = cardList.indexOf(':');
+            version = Integer.parseInt(cardList.substring(0, colon));
+            cardList = cardList.substring(colon + 1);
+        }
+        String[] cards = cardList.split(",");
+        int offset = versioned ? 4 : 0;
+        byte[] payload = new byte[offset + cards.length];
+        if (versioned) writeInt(payload, 0, version);
+        int n = offset;
+        for (String card : cards) {
+            if (!card.trim().isEmpty()) payload[n++] = (byte) cardCode(card);
+        }
+        return frame(opcode, payload, n);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    public static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    /** Encodes a server message that would otherwise be sent as a text line. */
+    public static byte[] encodeServerMessage(String message) {
+        if (message.startsWith("HAND:")) {
+            return handFrame(HAND, message.substring(5), false);
+        } else if (message.startsWith("HAND_SYNC:")) {
+            return handFrame(HAND_SYNC, message.substring(10), true);
+        } else if (message.startsWith("HAND_ADD:")) {
+            return handFrame(HAND_ADD, message.substring(9), true);
+        } else if (message.startsWith("HAND_REMOVE:")) {
+            return handFrame(HAND_REMOVE, message.substring(12), true);
+        } else if (message.startsWith("DRAWN_CARD:")) {
+            return cardFrame(DRAWN_CARD, message.substring(11));
+        } else if (message.startsWith("CURRENT_CARD:")) {
+            return cardFrame(CURRENT_CARD, message.substring(13));
+        } else if (message.equals("YOUR_TURN")) {
+            return frame(YOUR_TURN);
+        } else if (message.equals("CHOOSE_SUIT")) {
+            return frame(CHOOSE_SUIT);
+        } else if (message.equals("CLEAR_CHAT")) {
+            return frame(CLEAR_CHAT);
+        } else if (message.startsWith("GAME_OVER:")) {
+            return textFrame(GAME_OVER, message.substring(10));
+        }
+        return textFrame(TEXT, message);
+    }
+
+    /** Encodes a client command that would otherwise be sent as a text line. */
+    public static byte[] encodeClientCommand(String command) {
+        if (command.equals("START_GAME")) {
+            return frame(START_GAME);
+        } else if (command.equalsIgnoreCase("RESTART")) {
+            return frame(RESTART);
+        } else if (command.startsWith("PLAY:")) {
+            return cardFrame(PLAY, command.substring(5));
+        } else if (command.equals("DRAW")) {
+            return frame(DRAW);
+        } else if (command.equals("RESYNC")) {
+            return frame(RESYNC);
+        } else if (command.equals("SYNC:DELTA")) {
+            return frame(SYNC_DELTA);
+        } else if (command.startsWith("SUIT:")) {
+            return new byte[] {SUIT, 0, 1, (byte) suitCode(command.substring(5).trim())};
+        } else if (command.equals("LEADERBOARD")) {
+            return frame(LEADERBOARD);
+        } else if (command.startsWith("CHAT:")) {
+            return textFrame(CHAT, command.substring(5));
+        } else if (isCommand(command)) {
+            return textFrame(TEXT_COMMAND, command);
+        }
+        return textFrame(CHAT, command);
+    }
+
+    /** True for lines shaped like a protocol command: an upper-case word, optionally followed by ':' and arguments. */
+    static boolean isCommand(String line) {
+        int end = line.indexOf(':');
+        if (end < 0) end = line.length();
+        if (end == 0) return false;
+        for (int i = 0; i < end; i++) {
+            char c = line.charAt(i);
+            if ((c < 'A' || c > 'Z') && c != '_') return false;
+        }
+        return true;
+    }
+
+    /** Turns a client frame back into the text command the dispatcher understands, or null. */
+    public static String decodeClientCommand(int opcode, byte[] payload) {
+        switch (opcode) {
+            case START_GAME: return "START_GAME";
+            case RESTART: return "RESTART";
+            case DRAW: return "DRAW";
+            case RESYNC: return "RESYNC";
+            case SYNC_DELTA: return "SYNC:DELTA";
+            case PLAY: {
+                String card = payload.length == 1 ? Card.name(payload[0] & 0xFF) : null;
+                return card == null ? null : "PLAY:" + card;
+            }
+            case SUIT: {
+                String suit = payload.length == 1 ? Card.suitName(payload[0] & 0xFF) : null;
+                return suit == null ? null : "SUIT:" + suit;
+            }
+            case LEADERBOARD: return "LEADERBOARD";
+            case CHAT: return "CHAT:" + new String(payload, StandardCharsets.UTF_8);
+            case TEXT_COMMAND: return new String(payload, StandardCharsets.UTF_8);
+            default: return null;
+        }
+    }
+
+    /** Reads a newline-terminated UTF-8 line without buffering past it, or null at end of stream. */
+    public static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') break;
+            line.write(b);
+        }
+        if (b == -1 && line.size() == 0) return null;
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r') length--;
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /** Reads one frame's opcode into the first slot of the result, or returns null at end of stream. */
+    public static byte[] readFrame(DataInputStream in, int[] opcode) throws IOException {
+        int op = in.read();
+        if (op == -1) return null;
+        int length = in.readUnsignedShort();
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        opcode[0] = op;
+        return payload;
+    }
+}
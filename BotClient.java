@@ -0,0 +1,232 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless Crazy Eights player speaking the plain text protocol. It plays
+ * the lowest legal card, draws when it has none, names the suit it holds
+ * most of after an eight, and starts the next game when one ends. Usage:
+ * java BotClient [host] [port] [name]
+ *
+ * Every move's round trip, from sending PLAY, DRAW or SUIT until the
+ * server answers it, is recorded so LoadGenerator can report percentiles.
+ * Whole turns are timed separately: from the PLAY (or the SUIT after an
+ * eight) that ends the bot's turn until the server broadcasts whose turn
+ * is next, or the win.
+ */
+public class BotClient implements Runnable {
+    private static final int NONE = 0;
+    private static final int PLAYING = 1;
+    private static final int DRAWING = 2;
+    private static final int CHOOSING = 3;
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final BufferedReader in;
+    private final String name;
+    private final boolean leader;
+    private final AtomicLong moves;
+    private final AtomicLong gamesFinished;
+    private final Hand hand = new Hand();
+    private int topCard = Card.NONE;
+    private int currentSuit = Card.NONE;
+    private int chosenSuit = Card.NONE;
+    private int pending = NONE;
+    private long sentAt;
+    private long[] latencies = new long[1024];
+    private int latencyCount = 0;
+    private boolean turnPending = false;
+    private long turnSentAt;
+    private long[] turnLatencies = new long[1024];
+    private int turnCount = 0;
+    private volatile boolean started = false;
+
+    /** The leader of each table restarts play after a win; everyone else just follows. */
+    public BotClient(Socket socket, String name, boolean leader, AtomicLong moves, AtomicLong gamesFinished) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.out = socket.getOutputStream();
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.name = name;
+        this.leader = leader;
+        this.moves = moves;
+        this.gamesFinished = gamesFinished;
+        send(name);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 4414;
+        String name = args.length > 2 ? args[2] : "bot-" + ProcessHandle.current().pid();
+        AtomicLong games = new AtomicLong();
+        BotClient bot = new BotClient(new Socket(host, port), name, true, new AtomicLong(), games);
+        bot.ready();
+        bot.run();
+        System.out.println(name + " finished " + games.get() + " games; p50 " + bot.percentileMillis(0.5) + " ms.");
+    }
+
+    public void ready() {
+        send("START_GAME");
+    }
+
+    public void chat(String message) {
+        send("CHAT:" + message);
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+
+    /** Returns this bot's move latencies in nanoseconds; only call after run() has returned. */
+    public long[] latencies() {
+        return Arrays.copyOf(latencies, latencyCount);
+    }
+
+    /** Returns this bot's turn latencies in nanoseconds; only call after run() has returned. */
+    public long[] turnLatencies() {
+        return Arrays.copyOf(turnLatencies, turnCount);
+    }
+
+    @Override
+    public void run() {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                onLine(line);
+            }
+        } catch (IOException e) {
+            // socket closed; the run is over
+        }
+    }
+
+    private void onLine(String line) {
+        if (line.startsWith("HAND:")) {
+            hand.clear();
+            for (String card : line.substring(5).split(",")) {
+                int id = Card.parse(card);
+                if (id != Card.NONE) hand.add(id);
+            }
+        } else if (line.startsWith("CURRENT_CARD:")) {
+            int card = Card.parse(line.substring(13));
+            started = true;
+            if (card != topCard) {
+                topCard = card;
+                currentSuit = Card.isEight(card) && chosenSuit != Card.NONE ? chosenSuit : Card.suit(card);
+                chosenSuit = Card.NONE;
+            }
+        } else if (line.equals("Game is starting...")) {
+            topCard = Card.NONE;
+            chosenSuit = Card.NONE;
+        } else if (line.equals("YOUR_TURN")) {
+            move();
+        } else if (line.equals("CHOOSE_SUIT")) {
+            answered();
+            chooseSuit();
+        } else if (line.startsWith("DRAWN_CARD:")) {
+            answered();
+            hand.add(Card.parse(line.substring(11)));
+            move();
+        } else if (line.startsWith("NO_CARDS_LEFT")) {
+            answered();
+            send("RESTART");
+        } else if (line.startsWith("Invalid move")) {
+            answered();
+            turnPending = false;
+            pending = DRAWING;
+            sentAt = System.nanoTime();
+            send("DRAW");
+        } else if (line.startsWith(name + " played: ")) {
+            if (pending == PLAYING) answered();
+        } else if (line.contains(" chose suit: ")) {
+            chosenSuit = Card.parseSuit(line.substring(line.indexOf(" chose suit: ") + 13).trim());
+            if (pending == CHOOSING && line.startsWith(name + " ")) answered();
+        } else if (line.startsWith("It's ") && line.endsWith("'s turn.")) {
+            turnEnded();
+        } else if (line.endsWith(" wins the game!")) {
+            turnEnded();
+            gamesFinished.incrementAndGet();
+            if (leader) send("START_GAME");
+        }
+    }
+
+    private void move() {
+        int card = hand.firstPlayable(topCard, currentSuit);
+        pending = card >= 0 ? PLAYING : DRAWING;
+        sentAt = System.nanoTime();
+        if (card >= 0) {
+            if (!Card.isEight(card)) {
+                turnPending = true;
+                turnSentAt = sentAt;
+            }
+            hand.remove(card);
+            send("PLAY:" + Card.name(card));
+        } else {
+            send("DRAW");
+        }
+    }
+
+    private void chooseSuit() {
+        int best = Card.suit(topCard);
+        int bestCount = -1;
+        for (int suit = 0; suit < Card.SUITS; suit++) {
+            int count = 0;
+            for (int c = hand.nextCard(0); c >= 0; c = hand.nextCard(c + 1)) {
+                if (Card.suit(c) == suit) count++;
+            }
+            if (count > bestCount) {
+                best = suit;
+                bestCount = count;
+            }
+        }
+        pending = CHOOSING;
+        sentAt = System.nanoTime();
+        turnPending = true;
+        turnSentAt = sentAt;
+        send("SUIT:" + Card.suitName(best));
+    }
+
+    private void answered() {
+        if (pending == NONE) return;
+        if (latencyCount == latencies.length) latencies = Arrays.copyOf(latencies, latencyCount * 2);
+        latencies[latencyCount++] = System.nanoTime() - sentAt;
+        pending = NONE;
+        moves.incrementAndGet();
+    }
+
+    private void turnEnded() {
+        if (!turnPending) return;
+        if (turnCount == turnLatencies.length) turnLatencies = Arrays.copyOf(turnLatencies, turnCount * 2);
+        turnLatencies[turnCount++] = System.nanoTime() - turnSentAt;
+        turnPending = false;
+    }
+
+    private double percentileMillis(double p) {
+        long[] sorted = latencies();
+        Arrays.sort(sorted);
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1_000_000.0;
+    }
+
+    private void send(String command) {
+        try {
+            synchronized (out) {
+                out.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+}
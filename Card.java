@@ -0,0 +1,113 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cards are plain ints: suit * 13 + rank, so 0-51 for one deck. Rank and
+ * suit come from lookup tables and names are only built at the protocol edge.
+ */
+public final class Card {
+    static final int RANKS = 13;
+    static final int SUITS = 4;
+    static final int DECK_SIZE = RANKS * SUITS;
+    static final int NONE = -1;
+    static final int EIGHT = 6;
+
+    private static final String[] SUIT_NAMES = {"Hearts", "Diamonds", "Clubs", "Spades"};
+    private static final String[] RANK_NAMES = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "Jack", "Queen", "King", "Ace"};
+    private static final String[] SUIT_SYMBOLS = {"\u2665", "\u2666", "\u2663", "\u2660"};
+    private static final String[] RANK_LABELS = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K", "A"};
+    private static final String[] NAMES = new String[DECK_SIZE];
+    private static final String[] SYMBOLS = new String[DECK_SIZE];
+    private static final int[] RANK_OF = new int[DECK_SIZE];
+    private static final int[] SUIT_OF = new int[DECK_SIZE];
+    private static final int[] POINTS = new int[DECK_SIZE];
+    private static final Map<String, Integer> BY_NAME = new HashMap<>();
+
+    static {
+        for (int suit = 0; suit < SUITS; suit++) {
+            for (int rank = 0; rank < RANKS; rank++) {
+                int card = of(rank, suit);
+                NAMES[card] = RANK_NAMES[rank] + " of " + SUIT_NAMES[suit];
+                SYMBOLS[card] = RANK_LABELS[rank] + SUIT_SYMBOLS[suit];
+                RANK_OF[card] = rank;
+                SUIT_OF[card] = suit;
+                POINTS[card] = rank == EIGHT ? 50 : rank == RANKS - 1 ? 1 : Math.min(rank + 2, 10);
+                BY_NAME.put(NAMES[card], card);
+            }
+        }
+    }
+
+    private Card() {
+    }
+
+    public static int of(int rank, int suit) {
+        return suit * RANKS + rank;
+    }
+
+    public static int rank(int card) {
+        return RANK_OF[card];
+    }
+
+    public static int suit(int card) {
+        return SUIT_OF[card];
+    }
+
+    public static boolean isValid(int card) {
+        return card >= 0 && card < DECK_SIZE;
+    }
+
+    public static boolean isEight(int card) {
+        return RANK_OF[card] == EIGHT;
+    }
+
+    public static boolean isPlayable(int card, int topCard, int currentSuit) {
+        return RANK_OF[card] == EIGHT || SUIT_OF[card] == currentSuit || RANK_OF[card] == RANK_OF[topCard];
+    }
+
+    /** Penalty value of a card left in a losing hand: 50 for eights, 10 for faces, 1 for aces, pips otherwise. */
+    public static int points(int card) {
+        return POINTS[card];
+    }
+
+    public static String name(int card) {
+        return isValid(card) ? NAMES[card] : null;
+    }
+
+    /** Short face label such as "10\u2665" or "Q\u2660". */
+    public static String symbol(int card) {
+        return isValid(card) ? SYMBOLS[card] : null;
+    }
+
+    public static String suitSymbol(int suit) {
+        return suit >= 0 && suit < SUITS ? SUIT_SYMBOLS[suit] : null;
+    }
+
+    public static boolean isRed(int card) {
+        return SUIT_OF[card] < 2;
+    }
+
+    public static String rankLabel(int rank) {
+        return RANK_LABELS[rank];
+    }
+
+    public static String rankName(int rank) {
+        return RANK_NAMES[rank];
+    }
+
+    public static String suitName(int suit) {
+        return suit >= 0 && suit < SUITS ? SUIT_NAMES[suit] : null;
+    }
+
+    public static int parse(String name) {
+        if (name == null) return NONE;
+        Integer card = BY_NAME.get(name.trim());
+        return card == null ? NONE : card;
+    }
+
+    public static int parseSuit(String name) {
+        for (int suit = 0; suit < SUITS; suit++) {
+            if (SUIT_NAMES[suit].equals(name)) return suit;
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,83 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All 52 card faces rendered once into a single image, 13 across and 4
+ * down, at the pixel density of the screen they are drawn on. Drawing a
+ * card is one drawImage from its cell, so painting a hand needs no fonts,
+ * strings or shapes. Faces carry a corner index so a card stays readable
+ * when the next one overlaps it. One atlas is kept per display scale.
+ */
+public final class CardAtlas {
+    static final int CARD_WIDTH = 80;
+    static final int CARD_HEIGHT = 120;
+    static final int ARC = 15;
+    private static final ConcurrentHashMap<Integer, CardAtlas> BY_SCALE = new ConcurrentHashMap<>();
+
+    private final BufferedImage image;
+    private final int cellWidth;
+    private final int cellHeight;
+
+    private CardAtlas(double scale) {
+        cellWidth = (int) Math.ceil(CARD_WIDTH * scale);
+        cellHeight = (int) Math.ceil(CARD_HEIGHT * scale);
+        image = new BufferedImage(cellWidth * Card.RANKS, cellHeight * Card.SUITS, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.scale(scale, scale);
+        Font face = new Font("SansSerif", Font.BOLD, 32);
+        Font corner = new Font("SansSerif", Font.BOLD, 13);
+        g.setStroke(new BasicStroke(1f));
+        FontMetrics metrics = g.getFontMetrics(face);
+        for (int card = 0; card < Card.DECK_SIZE; card++) {
+            double x = Card.rank(card) * cellWidth / scale;
+            double y = Card.suit(card) * cellHeight / scale;
+            Graphics2D cell = (Graphics2D) g.create();
+            cell.translate(x, y);
+            cell.setColor(Color.WHITE);
+            cell.fillRoundRect(0, 0, CARD_WIDTH - 1, CARD_HEIGHT - 1, ARC, ARC);
+            cell.setColor(Color.BLACK);
+            cell.drawRoundRect(0, 0, CARD_WIDTH - 1, CARD_HEIGHT - 1, ARC, ARC);
+            cell.setColor(Card.isRed(card) ? Color.RED : Color.BLACK);
+            String label = Card.symbol(card);
+            cell.setFont(face);
+            cell.drawString(label, (CARD_WIDTH - metrics.stringWidth(label)) / 2, 70);
+            cell.setFont(corner);
+            cell.drawString(Card.rankLabel(Card.rank(card)), 4, 16);
+            cell.drawString(Card.suitSymbol(Card.suit(card)), 4, 31);
+            cell.dispose();
+        }
+        g.dispose();
+    }
+
+    /** The atlas for a device scale such as 1.0, 1.25 or 2.0 (from the Graphics2D transform). */
+    public static CardAtlas forScale(double scale) {
+        int key = (int) Math.round(Math.max(scale, 1.0) * 100);
+        return BY_SCALE.computeIfAbsent(key, k -> new CardAtlas(k / 100.0));
+    }
+
+    public static CardAtlas forGraphics(Graphics2D g) {
+        return forScale(g.getTransform().getScaleX());
+    }
+
+    /** Draws card with its top-left corner at (x, y) in user space, CARD_WIDTH x CARD_HEIGHT. */
+    public void draw(Graphics2D g, int card, int x, int y) {
+        draw(g, card, x, y, CARD_WIDTH);
+    }
+
+    /** Draws only the leftmost width columns of the card, for a card the next one overlaps. */
+    public void draw(Graphics2D g, int card, int x, int y, int width) {
+        int face = card % Card.DECK_SIZE;
+        int sx = Card.rank(face) * cellWidth;
+        int sy = Card.suit(face) * cellHeight;
+        int sw = width >= CARD_WIDTH ? cellWidth : (int) Math.ceil((long) width * cellWidth / (double) CARD_WIDTH);
+        g.drawImage(image, x, y, x + width, y + CARD_HEIGHT, sx, sy, sx + sw, sy + cellHeight, null);
+    }
+}
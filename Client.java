@@ -1,50 +1,64 @@
 import java.net.Socket;
-import java.util.ArrayList;
 
 import javax.swing.*;
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.awt.*;
-import javax.sound.sampled.*;
 import java.io.File;
 import java.io.InputStream;
 
 public class Client {
+    private static final String SERVER_HOST = "10.210.15.144";
+    private static final int SERVER_PORT = 4414;
+    private static final int RECONNECT_ATTEMPTS = 5;
+    private static final long RECONNECT_DELAY_MS = 1000;
+    private static final int CHAT_LINES = 1000;
+    private static final Font SUIT_MARKER_FONT = new Font("SansSerif", Font.PLAIN, 24);
+
     private String username;
+    private String sessionToken;
+    private final boolean useBinaryProtocol;
     private Socket socket;
-    private BufferedReader in;
-    private PrintWriter out;
+    private DataInputStream in;
+    private OutputStream out;
+    private boolean binaryProtocol;
     private JFrame frame;
-    private JTextArea chatArea;
+    private ConsolePane chatArea;
     private JTextField inputField;
     private JButton drawButton;
     private JButton startGameButton;
     private JButton musicToggleButton;
-    private JPanel cardPanel;
-    private DLList<String> hand = new DLList<>();
+    private HandView cardPanel;
+    private final Hand hand = new Hand();
+    private boolean deltaSync = false;
+    private boolean awaitingResync = false;
+    private int handVersion = 0;
     private JPanel deckPanel;
     private String currentCardOnDeck;
     private String currentSuit;
     private boolean myTurn = false;
-    private Clip gameplayMusicClip;
-    private Clip endGameMusicClip;
+    private final MusicPlayer music = new MusicPlayer(MusicPlayer.defaultCacheDir());
     private boolean musicEnabled = true;
     private boolean gameplayMusicPlaying = false;
-    private ArrayList<String> cardsDrawnHistory = new ArrayList<>();
-    private int cardsDrawnCount = 0;
+    private final IntArrayList drawTimes = new IntArrayList();
 
-    public Client() {
+    public Client(boolean useBinaryProtocol) {
+        this.useBinaryProtocol = useBinaryProtocol;
         try {
-            socket = new Socket("10.210.15.144", 4414);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            out = new PrintWriter(socket.getOutputStream(), true);
+            connect();
             username = JOptionPane.showInputDialog("Enter your username:");
+            while (username != null && !username.trim().isEmpty() && !ScoreTable.isValidName(username)) {
+                username = JOptionPane.showInputDialog(ScoreTable.NAME_RULES + "\nEnter your username:");
+            }
             if (username == null || username.trim().isEmpty()) {
                 System.exit(0);
             }
-            out.println(username);
+            send(username);
+            startSession();
             initializeMusic();
             setupGUI();
             new Thread(new ServerListener()).start();
@@ -55,156 +69,81 @@ public class Client {
         }
     }
 
-    private void initializeMusic() {
-        try {
-            gameplayMusicClip = generateGameplayMusic();
-            endGameMusicClip = generateEndGameMusic();
-        } catch (Exception e) {
-            musicEnabled = false;
+    private void connect() throws IOException {
+        socket = new Socket(SERVER_HOST, SERVER_PORT);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new BufferedOutputStream(socket.getOutputStream());
+        binaryProtocol = false;
+    }
+
+    private void startSession() {
+        if (useBinaryProtocol) {
+            send(BinaryProtocol.NEGOTIATE);
+            binaryProtocol = true;
         }
+        send("SYNC:DELTA");
     }
 
-    private Clip generateGameplayMusic() throws LineUnavailableException {
-        int sampleRate = 44100;
-        int duration = 16;
-        byte[] buffer = new byte[sampleRate * duration * 2];
-        double[] melody = {
-            261.63, 293.66, 329.63, 349.23, 392.00, 349.23, 329.63, 293.66,
-            261.63, 329.63, 392.00, 440.00, 392.00, 349.23, 329.63, 293.66,
-            261.63, 293.66, 329.63, 349.23, 392.00, 349.23, 329.63, 293.66,
-            261.63, 0, 261.63, 0, 261.63, 0, 261.63, 0
-        };
-        double noteDuration = (double) duration / melody.length;
-        int samplesPerNote = (int) (sampleRate * noteDuration);
-        int bufferIndex = 0;
-        for (int noteIndex = 0; noteIndex < melody.length; noteIndex++) {
-            double frequency = melody[noteIndex];
-            for (int i = 0; i < samplesPerNote && bufferIndex < buffer.length - 1; i++) {
-                double t = (double) i / sampleRate;
-                double amplitude = 0.18;
-                double env;
-                double attack = 0.08, decay = 0.12, release = 0.18;
-                double pos = (double) i / samplesPerNote;
-                if (pos < attack) env = pos / attack;
-                else if (pos < attack + decay) env = 1.0 - (pos - attack) / decay * 0.3;
-                else if (pos < 1.0 - release) env = 0.7;
-                else env = 0.7 * (1.0 - (pos - (1.0 - release)) / release);
-                double wave = 0;
-                if (frequency > 0) {
-                    wave += amplitude * env * Math.sin(2 * Math.PI * frequency * t);
-                    wave += 0.10 * amplitude * env * Math.sin(2 * Math.PI * frequency * 2 * t);
+    /**
+     * Opens a new connection after the old one dropped, taking the held seat
+     * back with the session token if the server still has it, and otherwise
+     * logging in again as a new player.
+     */
+    private boolean reconnect() {
+        for (int attempt = 1; attempt <= RECONNECT_ATTEMPTS; attempt++) {
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS * attempt);
+                connect();
+                if (sessionToken != null) {
+                    send("RESUME:" + sessionToken);
+                    if ("RESUMED".equals(BinaryProtocol.readLine(in))) {
+                        startSession();
+                        return true;
+                    }
+                    sessionToken = null;
+                    chatArea.append("Your seat was not held; joining as a new player.\n");
                 }
-                short sample = (short) (wave * 32767);
-                buffer[bufferIndex++] = (byte) (sample & 0xFF);
-                buffer[bufferIndex++] = (byte) ((sample >> 8) & 0xFF);
+                send(username);
+                startSession();
+                return true;
+            } catch (IOException e) {
+                chatArea.append("Reconnect attempt " + attempt + " failed: " + e.getMessage() + "\n");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
             }
         }
-        AudioFormat format = new AudioFormat(sampleRate, 16, 1, true, false);
-        DataLine.Info info = new DataLine.Info(Clip.class, format);
-        Clip clip = (Clip) AudioSystem.getLine(info);
-        clip.open(format, buffer, 0, bufferIndex);
-        return clip;
+        return false;
     }
 
-    private Clip generateEndGameMusic() throws LineUnavailableException {
-        int sampleRate = 44100;
-        int duration = 4;
-        byte[] buffer = new byte[sampleRate * duration * 2];
-        int bufferIndex = 0;
-        double startFreq = 400, endFreq = 1800;
-        int glissSamples = sampleRate * 2;
-        for (int i = 0; i < glissSamples && bufferIndex < buffer.length - 1; i++) {
-            double t = (double) i / sampleRate;
-            double freq = startFreq + (endFreq - startFreq) * ((double) i / glissSamples);
-            double env = Math.min(1.0, t / 0.2);
-            double wave = 0.35 * env * Math.sin(2 * Math.PI * freq * t);
-            short sample = (short) (wave * 32767);
-            buffer[bufferIndex++] = (byte) (sample & 0xFF);
-            buffer[bufferIndex++] = (byte) ((sample >> 8) & 0xFF);
-        }
-        double[] bellFreqs = { 1318.5, 1567.98, 1760.00, 2093.00 };
-        int bellSamples = sampleRate / 2;
-        for (double freq : bellFreqs) {
-            for (int i = 0; i < bellSamples && bufferIndex < buffer.length - 1; i++) {
-                double t = (double) i / sampleRate;
-                double env = Math.exp(-3 * t);
-                double wave = 0.5 * env * Math.sin(2 * Math.PI * freq * t);
-                wave += 0.2 * env * Math.sin(2 * Math.PI * freq * 2 * t);
-                wave += 0.1 * env * Math.sin(2 * Math.PI * freq * 3 * t);
-                short sample = (short) (wave * 32767);
-                buffer[bufferIndex++] = (byte) (sample & 0xFF);
-                buffer[bufferIndex++] = (byte) ((sample >> 8) & 0xFF);
-            }
-        }
-        double[] chordFreqs = { 523.25, 659.25, 783.99 };
-        int chordSamples = sampleRate / 2;
-        for (int i = 0; i < chordSamples && bufferIndex < buffer.length - 1; i++) {
-            double t = (double) i / sampleRate;
-            double env = Math.exp(-2 * t);
-            double wave = 0;
-            for (double freq : chordFreqs) {
-                wave += (0.25 * env * Math.sin(2 * Math.PI * freq * t));
-            }
-            short sample = (short) (wave * 32767);
-            buffer[bufferIndex++] = (byte) (sample & 0xFF);
-            buffer[bufferIndex++] = (byte) ((sample >> 8) & 0xFF);
-        }
-        while (bufferIndex < buffer.length) {
-            buffer[bufferIndex++] = 0;
-            buffer[bufferIndex++] = 0;
-        }
-        AudioFormat format = new AudioFormat(sampleRate, 16, 1, true, false);
-        DataLine.Info info = new DataLine.Info(Clip.class, format);
-        Clip clip = (Clip) AudioSystem.getLine(info);
-        clip.open(format, buffer, 0, buffer.length);
-        return clip;
+    private void initializeMusic() {
+        music.start();
     }
 
     private void playGameplayMusic() {
-        if (!musicEnabled || gameplayMusicClip == null || gameplayMusicPlaying) return;
-        try {
-            if (gameplayMusicClip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-                FloatControl gainControl = (FloatControl) gameplayMusicClip.getControl(FloatControl.Type.MASTER_GAIN);
-                gainControl.setValue(gainControl.getMaximum() * 0.3f);
-            }
-            gameplayMusicClip.setFramePosition(0);
-            gameplayMusicClip.loop(Clip.LOOP_CONTINUOUSLY);
-            gameplayMusicPlaying = true;
-            SwingUtilities.invokeLater(() -> {});
-        } catch (Exception e) {}
+        if (!musicEnabled || gameplayMusicPlaying) return;
+        music.loop(MusicSynth.GAMEPLAY, 0.3f);
+        gameplayMusicPlaying = true;
     }
 
     private void stopGameplayMusic() {
-        if (gameplayMusicClip != null && gameplayMusicPlaying) {
-            gameplayMusicClip.stop();
+        if (gameplayMusicPlaying) {
+            music.stop();
             gameplayMusicPlaying = false;
         }
     }
 
     private void playEndGameMusic() {
-        if (!musicEnabled || endGameMusicClip == null) return;
-        try {
-            stopGameplayMusic();
-            if (endGameMusicClip.isRunning()) {
-                endGameMusicClip.stop();
-            }
-            endGameMusicClip.setFramePosition(0);
-            if (endGameMusicClip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-                FloatControl gainControl = (FloatControl) endGameMusicClip.getControl(FloatControl.Type.MASTER_GAIN);
-                gainControl.setValue(gainControl.getMaximum() * 0.8f);
-            }
-            endGameMusicClip.start();
-            SwingUtilities.invokeLater(() -> {});
-        } catch (Exception e) {}
+        if (!musicEnabled) return;
+        gameplayMusicPlaying = false;
+        music.play(MusicSynth.END_GAME, 0.8f);
     }
 
     private void toggleMusic() {
         musicEnabled = !musicEnabled;
         if (!musicEnabled) {
-            stopGameplayMusic();
-            if (endGameMusicClip != null) {
-                endGameMusicClip.stop();
-            }
+            gameplayMusicPlaying = false;
+            music.stop();
             musicToggleButton.setText("Music: OFF");
         } else {
             musicToggleButton.setText("Music: ON");
@@ -217,50 +156,26 @@ public class Client {
     private void setupGUI() {
         frame = new JFrame("CrazyEights Game - " + username);
         frame.setLayout(new BorderLayout());
-        chatArea = new JTextArea(5, 50);
-        chatArea.setEditable(false);
-        chatArea.setLineWrap(true);
-        chatArea.setWrapStyleWord(true);
+        chatArea = new ConsolePane(5, 50, CHAT_LINES);
+        chatArea.textArea().setLineWrap(true);
+        chatArea.textArea().setWrapStyleWord(true);
         inputField = new JTextField(40);
         drawButton = new JButton("Draw Card");
         startGameButton = new JButton("Start Game");
         musicToggleButton = new JButton("Music: ON");
-        cardPanel = new JPanel() {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2 = (Graphics2D) g;
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2.setColor(new Color(0, 100, 0));
-                g2.fillRoundRect(0, 0, getWidth(), getHeight(), 40, 40);
-                g2.setColor(new Color(218, 165, 32));
-                g2.setStroke(new BasicStroke(6f));
-                g2.drawRoundRect(3, 3, getWidth()-6, getHeight()-6, 40, 40);
-            }
-        };
-        cardPanel.setOpaque(false);
-        cardPanel.setLayout(new FlowLayout());
+        cardPanel = new HandView();
+        cardPanel.setClickListener(this::onCardClicked);
         deckPanel = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                if (currentCardOnDeck != null) {
-                    g.setColor(Color.WHITE);
-                    g.fillRoundRect(10, 10, 80, 120, 15, 15);
-                    g.setColor(Color.BLACK);
-                    g.drawRoundRect(10, 10, 80, 120, 15, 15);
-                    String display = getCardSymbol(currentCardOnDeck);
-                    String suit = getCardSuit(currentCardOnDeck);
-                    if (suit != null && (suit.equals("Hearts") || suit.equals("Diamonds"))) {
-                        g.setColor(Color.RED);
-                    } else {
-                        g.setColor(Color.BLACK);
-                    }
-                    g.setFont(new Font("SansSerif", Font.BOLD, 32));
-                    g.drawString(display, 25, 80);
-                    if (currentSuit != null && currentCardOnDeck.startsWith("8")) {
+                int top = Card.parse(currentCardOnDeck);
+                if (top != Card.NONE) {
+                    Graphics2D g2 = (Graphics2D) g;
+                    CardAtlas.forGraphics(g2).draw(g2, top, 10, 10);
+                    if (currentSuit != null && Card.isEight(top)) {
                         g.setColor(Color.BLUE);
-                        g.setFont(new Font("SansSerif", Font.PLAIN, 24));
+                        g.setFont(SUIT_MARKER_FONT);
                         g.drawString(getSuitSymbol(currentSuit), 55, 110);
                     }
                 }
@@ -269,7 +184,7 @@ public class Client {
         deckPanel.setPreferredSize(new Dimension(100, 140));
         JPanel bottomPanel = new JPanel();
         bottomPanel.setLayout(new BorderLayout());
-        bottomPanel.add(new JScrollPane(chatArea), BorderLayout.CENTER);
+        bottomPanel.add(chatArea, BorderLayout.CENTER);
         JPanel inputPanel = new JPanel();
         inputPanel.add(inputField);
         inputPanel.add(drawButton);
@@ -313,132 +228,57 @@ public class Client {
             """;
         int response = JOptionPane.showConfirmDialog(frame, message, "Start Game", JOptionPane.OK_CANCEL_OPTION, JOptionPane.INFORMATION_MESSAGE);
         if (response == JOptionPane.OK_OPTION) {
-            out.println("START_GAME");
-            out.flush();
+            send("START_GAME");
         }
     }
 
     private void updateCardPanel() {
-        cardPanel.removeAll();
-        for (String card : hand) {
-            JPanel cardGraphic = new JPanel() {
-                @Override
-                protected void paintComponent(Graphics g) {
-                    super.paintComponent(g);
-                    g.setColor(Color.WHITE);
-                    g.fillRoundRect(10, 10, 80, 120, 15, 15);
-                    g.setColor(Color.BLACK);
-                    g.drawRoundRect(10, 10, 80, 120, 15, 15);
-                    String display = getCardSymbol(card);
-                    String suit = getCardSuit(card);
-                    if (suit != null && (suit.equals("Hearts") || suit.equals("Diamonds"))) {
-                        g.setColor(Color.RED);
-                    } else {
-                        g.setColor(Color.BLACK);
-                    }
-                    g.setFont(new Font("SansSerif", Font.BOLD, 32));
-                    g.drawString(display, 25, 80);
-                }
-            };
-            cardGraphic.setPreferredSize(new Dimension(100, 140));
-            cardGraphic.setToolTipText("Click to play this card: " + getCardSymbol(card));
-            cardGraphic.addMouseListener(new java.awt.event.MouseAdapter() {
-                @Override
-                public void mouseClicked(java.awt.event.MouseEvent e) {
-                    if (!myTurn) {
-                        JOptionPane.showMessageDialog(frame, "It's not your turn!", "Wait", JOptionPane.WARNING_MESSAGE);
-                        return;
-                    }
-                    if (isValidPlay(card)) {
-                        playCard(card);
-                        myTurn = false;
-                    } else {
-                        JOptionPane.showMessageDialog(frame, 
-                            "Invalid move! Card does not match the current suit or rank.\n" +
-                            "Current card: " + currentCardOnDeck + "\n" +
-                            "Current suit: " + (currentSuit != null ? currentSuit : getCardSuit(currentCardOnDeck)) + "\n" +
-                            "Your card: " + card, 
-                            "Invalid Move", 
-                            JOptionPane.ERROR_MESSAGE);
-                    }
-                }
-            });
-            cardPanel.add(cardGraphic);
-        }
-        cardPanel.revalidate();
-        cardPanel.repaint();
+        cardPanel.setHand(hand);
     }
 
-    private String getCardSuit(String card) {
-        if (card != null && card.contains(" of ")) {
-            return card.split(" of ")[1].trim();
-        }
-        return null;
-    }
-    
-    private String getCardRank(String card) {
-        if (card != null && card.contains(" of ")) {
-            return card.split(" of ")[0].trim();
+    private void onCardClicked(int id) {
+        String card = Card.name(id);
+        if (!myTurn) {
+            JOptionPane.showMessageDialog(frame, "It's not your turn!", "Wait", JOptionPane.WARNING_MESSAGE);
+            return;
         }
-        return null;
-    }
-
-    private String getCardSymbol(String card) {
-        if (card == null || !card.contains(" of ")) return card;
-        String rank = getCardRank(card);
-        String suit = getCardSuit(card);
-        String symbol = "";
-        if (suit != null) {
-            switch (suit) {
-                case "Hearts": symbol = "\u2665"; break;
-                case "Diamonds": symbol = "\u2666"; break;
-                case "Clubs": symbol = "\u2663"; break;
-                case "Spades": symbol = "\u2660"; break;
-                default: symbol = suit;
-            }
+        if (isValidPlay(card)) {
+            playCard(card);
+            myTurn = false;
+        } else {
+            int top = Card.parse(currentCardOnDeck);
+            JOptionPane.showMessageDialog(frame, 
+                "Invalid move! Card does not match the current suit or rank.\n" +
+                "Current card: " + currentCardOnDeck + "\n" +
+                "Current suit: " + (currentSuit != null ? currentSuit : top == Card.NONE ? null : Card.suitName(Card.suit(top))) + "\n" +
+                "Your card: " + card, 
+                "Invalid Move", 
+                JOptionPane.ERROR_MESSAGE);
         }
-        if (rank.equals("Jack")) rank = "J";
-        else if (rank.equals("Queen")) rank = "Q";
-        else if (rank.equals("King")) rank = "K";
-        else if (rank.equals("Ace")) rank = "A";
-        return rank + symbol;
     }
 
     private String getSuitSymbol(String suit) {
         if (suit == null) return "";
-        switch (suit) {
-            case "Hearts": return "\u2665";
-            case "Diamonds": return "\u2666";
-            case "Clubs": return "\u2663";
-            case "Spades": return "\u2660";
-            default: return suit;
-        }
+        int id = Card.parseSuit(suit);
+        return id == Card.NONE ? suit : Card.suitSymbol(id);
     }
 
     private boolean isValidPlay(String card) {
-        if (currentCardOnDeck == null || currentCardOnDeck.isEmpty()) {
-            return false;
-        }
-        try {
-            String playRank = getCardRank(card);
-            String playSuit = getCardSuit(card);
-            String currentRank = getCardRank(currentCardOnDeck);
-            String effectiveSuit = currentSuit != null ? currentSuit : getCardSuit(currentCardOnDeck);
-            boolean isEight = playRank.equals("8");
-            boolean ranksMatch = playRank.equals(currentRank);
-            boolean suitsMatch = playSuit.equals(effectiveSuit);
-            boolean isValid = isEight || ranksMatch || suitsMatch;
-            return isValid;
-        } catch (Exception e) {
+        int play = Card.parse(card);
+        int top = Card.parse(currentCardOnDeck);
+        if (play == Card.NONE || top == Card.NONE) {
             return false;
         }
+        int effectiveSuit = currentSuit != null ? Card.parseSuit(currentSuit) : Card.suit(top);
+        return Card.isPlayable(play, top, effectiveSuit);
     }
 
     private void playCard(String card) {
-        hand.remove(card);
-        updateCardPanel();
-        out.println("PLAY:" + card);
-        out.flush();
+        if (!deltaSync) {
+            hand.remove(Card.parse(card));
+            updateCardPanel();
+        }
+        send("PLAY:" + card);
         if (card.startsWith("8")) {
         }
         updateDeckCard(card);
@@ -450,16 +290,14 @@ public class Client {
             JOptionPane.showMessageDialog(frame, "It's not your turn!", "Wait", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        out.println("DRAW");
-        out.flush();
-        cardsDrawnCount++;
-        String drawMsg = "Drawn card #" + cardsDrawnCount + " at " + java.time.LocalTime.now();
-        cardsDrawnHistory.add(drawMsg);
+        send("DRAW");
+        drawTimes.add((int) (java.time.LocalTime.now().toNanoOfDay() / 1_000_000));
         StringBuilder history = new StringBuilder();
-        for (int i = 0; i < cardsDrawnHistory.size(); i++) {
-            history.append(cardsDrawnHistory.get(i)).append("; ");
+        for (int i = 0; i < drawTimes.size(); i++) {
+            history.append("Drawn card #").append(i + 1).append(" at ")
+                    .append(java.time.LocalTime.ofNanoOfDay(drawTimes.get(i) * 1_000_000L)).append("; ");
         }
-        chatArea.append("You have drawn " + cardsDrawnCount + " card(s) this game.\n");
+        chatArea.append("You have drawn " + drawTimes.size() + " card(s) this game.\n");
         chatArea.append("Draw history: " + history.toString() + "\n");
     }
 
@@ -475,104 +313,299 @@ public class Client {
         String message = inputField.getText().trim();
         if (!message.isEmpty()) {
             if (message.equalsIgnoreCase("restart")) {
-                out.println("RESTART");
-                out.flush();
+                send("RESTART");
             } else {
-                out.println("CHAT:" + message);
-                out.flush();
+                send("CHAT:" + message);
             }
             inputField.setText("");
         }
     }
 
+    private void send(String command) {
+        try {
+            if (binaryProtocol) {
+                out.write(BinaryProtocol.encodeClientCommand(command));
+            } else {
+                out.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            out.flush();
+        } catch (IOException e) {
+            if (chatArea != null) chatArea.append("Error sending to server: " + e.getMessage() + "\n");
+        }
+    }
+
     private class ServerListener implements Runnable {
         @Override
         public void run() {
+            while (true) {
+                readUntilDisconnected();
+                myTurn = false;
+                chatArea.append("Reconnecting to server...\n");
+                if (!reconnect()) {
+                    chatArea.append("Could not reconnect to the server.\n");
+                    return;
+                }
+                chatArea.append("Reconnected.\n");
+            }
+        }
+
+        private void readUntilDisconnected() {
             try {
-                String message;
-                while ((message = in.readLine()) != null) {
-                    if (message.startsWith("HAND:")) {
-                        hand.clear();
-                        String[] cards = message.substring(5).split(",");
-                        for (String card : cards) {
-                            if (!card.trim().isEmpty()) {
-                                hand.add(card.trim());
-                            }
-                        }
-                        SwingUtilities.invokeLater(() -> updateCardPanel());
-                    } else if (message.startsWith("DRAWN_CARD:")) {
-                        String card = message.substring(11).trim();
-                        hand.add(card);
-                        chatArea.append("You drew: " + card + "\n");
-                        SwingUtilities.invokeLater(() -> updateCardPanel());
-                    } else if (message.startsWith("CURRENT_CARD:")) {
-                        String card = message.substring(13).trim();
-                        currentCardOnDeck = card;
-                        SwingUtilities.invokeLater(() -> deckPanel.repaint());
-                        chatArea.append("Current card: " + card + "\n");
-                    } else if (message.equals("YOUR_TURN")) {
-                        chatArea.append("It's your turn! Click a card to play or press 'Draw Card'.\n");
-                        myTurn = true;
-                    } else if (message.equals("CHOOSE_SUIT")) {
-                        String[] suits = {"Hearts", "Diamonds", "Clubs", "Spades"};
-                        String suit = (String) JOptionPane.showInputDialog(
-                            frame, 
-                            "Choose a suit:", 
-                            "Suit Selection", 
-                            JOptionPane.QUESTION_MESSAGE, 
-                            null, 
-                            suits, 
-                            suits[0]);
-                        if (suit != null) {
-                            currentSuit = suit;
-                            out.println("SUIT:" + suit);
-                            out.flush();
-                            chatArea.append("You chose suit: " + getSuitSymbol(suit) + "\n");
-                        } else {
-                            currentSuit = "Hearts";
-                            out.println("SUIT:Hearts");
-                            out.flush();
-                            chatArea.append("You chose suit: " + getSuitSymbol("Hearts") + "\n");
-                        }
-                        deckPanel.repaint();
-                    } else if (message.startsWith("CHOSEN_SUIT:")) {
-                        String suit = message.substring(12).trim();
-                        currentSuit = suit;
-                        chatArea.append("Current suit changed to: " + getSuitSymbol(currentSuit) + "\n");
-                        deckPanel.repaint();
-                    } else if (message.startsWith("GAME_OVER:Server")) {
-                        SwingUtilities.invokeLater(() -> {
-                            stopGameplayMusic();
-                            JOptionPane.showMessageDialog(frame, "Game ended by server.\nType 'restart' to play again.", "Game Over", JOptionPane.INFORMATION_MESSAGE);
-                        });
-                        myTurn = false;
-                    } else if (message.equals("Game is starting...")) {
-                        SwingUtilities.invokeLater(() -> playGameplayMusic());
-                        chatArea.append(message + "\n");
+                boolean binaryInbound = false;
+                int[] opcode = new int[1];
+                while (true) {
+                    if (binaryInbound) {
+                        byte[] payload = BinaryProtocol.readFrame(in, opcode);
+                        if (payload == null) break;
+                        handleFrame(opcode[0], payload);
                     } else {
-                        chatArea.append(message + "\n");
-                        if (message.contains("wins the game!")) {
-                            String winner = message.split(" ")[0];
-                            SwingUtilities.invokeLater(() -> {
-                                playEndGameMusic();
-                                JOptionPane.showMessageDialog(frame, winner + " wins the game!\nType 'restart' to play again.", "Game Over", JOptionPane.INFORMATION_MESSAGE);
-                            });
-                        }
-                        if (message.contains(" chose suit: ")) {
-                            String suit = message.substring(message.indexOf("suit: ") + 6).trim();
-                            currentSuit = suit;
-                            deckPanel.repaint();
+                        String message = BinaryProtocol.readLine(in);
+                        if (message == null) break;
+                        if (message.equals(BinaryProtocol.ACCEPTED)) {
+                            binaryInbound = true;
+                            continue;
                         }
+                        handleLine(message);
                     }
-                    chatArea.setCaretPosition(chatArea.getDocument().getLength());
                 }
             } catch (IOException e) {
                 chatArea.append("Connection to server lost: " + e.getMessage() + "\n");
             }
         }
+
+        private void handleFrame(int opcode, byte[] payload) {
+            switch (opcode) {
+                case BinaryProtocol.HAND:
+                    hand.clear();
+                    for (int card : decodeCards(payload, 0)) hand.add(card);
+                    SwingUtilities.invokeLater(() -> updateCardPanel());
+                    break;
+                case BinaryProtocol.HAND_SYNC:
+                    onHandSync(BinaryProtocol.readInt(payload, 0), decodeCards(payload, 4));
+                    break;
+                case BinaryProtocol.HAND_ADD:
+                    onHandDelta(BinaryProtocol.readInt(payload, 0), payload[4] & 0xFF, true);
+                    break;
+                case BinaryProtocol.HAND_REMOVE:
+                    onHandDelta(BinaryProtocol.readInt(payload, 0), payload[4] & 0xFF, false);
+                    break;
+                case BinaryProtocol.DRAWN_CARD:
+                    onDrawnCard(Card.name(payload[0] & 0xFF));
+                    break;
+                case BinaryProtocol.CURRENT_CARD:
+                    onCurrentCard(Card.name(payload[0] & 0xFF));
+                    break;
+                case BinaryProtocol.YOUR_TURN:
+                    onYourTurn();
+                    break;
+                case BinaryProtocol.CHOOSE_SUIT:
+                    onChooseSuit();
+                    break;
+                case BinaryProtocol.CLEAR_CHAT:
+                    handleLine("CLEAR_CHAT");
+                    break;
+                case BinaryProtocol.GAME_OVER:
+                    handleLine("GAME_OVER:" + new String(payload, StandardCharsets.UTF_8));
+                    break;
+                default:
+                    handleLine(new String(payload, StandardCharsets.UTF_8));
+            }
+        }
+
+        private void handleLine(String message) {
+            if (message.startsWith("SESSION:")) {
+                sessionToken = message.substring(8).trim();
+            } else if (message.startsWith("SNAPSHOT:")) {
+                onSnapshot(message.substring(9));
+            } else if (message.startsWith("HAND:")) {
+                hand.clear();
+                for (int card : parseCards(message.substring(5))) {
+                    hand.add(card);
+                }
+                SwingUtilities.invokeLater(() -> updateCardPanel());
+            } else if (message.startsWith("HAND_SYNC:")) {
+                String[] parts = message.substring(10).split(":", 2);
+                onHandSync(Integer.parseInt(parts[0]), parseCards(parts[1]));
+            } else if (message.startsWith("HAND_ADD:")) {
+                String[] parts = message.substring(9).split(":", 2);
+                onHandDelta(Integer.parseInt(parts[0]), Card.parse(parts[1]), true);
+            } else if (message.startsWith("HAND_REMOVE:")) {
+                String[] parts = message.substring(12).split(":", 2);
+                onHandDelta(Integer.parseInt(parts[0]), Card.parse(parts[1]), false);
+            } else if (message.startsWith("DRAWN_CARD:")) {
+                onDrawnCard(message.substring(11).trim());
+            } else if (message.startsWith("CURRENT_CARD:")) {
+                onCurrentCard(message.substring(13).trim());
+            } else if (message.equals("YOUR_TURN")) {
+                onYourTurn();
+            } else if (message.equals("CHOOSE_SUIT")) {
+                onChooseSuit();
+            } else if (message.startsWith("CHOSEN_SUIT:")) {
+                String suit = message.substring(12).trim();
+                currentSuit = suit;
+                chatArea.append("Current suit changed to: " + getSuitSymbol(currentSuit) + "\n");
+                deckPanel.repaint();
+            } else if (message.startsWith("GAME_OVER:Server")) {
+                SwingUtilities.invokeLater(() -> {
+                    stopGameplayMusic();
+                    JOptionPane.showMessageDialog(frame, "Game ended by server.\nType 'restart' to play again.", "Game Over", JOptionPane.INFORMATION_MESSAGE);
+                });
+                myTurn = false;
+            } else if (message.startsWith("LEADERBOARD:")) {
+                onLeaderboard(message.substring(12));
+            } else if (message.equals("CLEAR_CHAT")) {
+                chatArea.clear();
+            } else if (message.equals("Game is starting...")) {
+                SwingUtilities.invokeLater(() -> playGameplayMusic());
+                chatArea.append(message + "\n");
+            } else {
+                chatArea.append(message + "\n");
+                if (message.contains("wins the game!")) {
+                    String winner = message.split(" ")[0];
+                    SwingUtilities.invokeLater(() -> {
+                        playEndGameMusic();
+                        JOptionPane.showMessageDialog(frame, winner + " wins the game!\nType 'restart' to play again.", "Game Over", JOptionPane.INFORMATION_MESSAGE);
+                    });
+                }
+                if (message.contains(" chose suit: ")) {
+                    String suit = message.substring(message.indexOf("suit: ") + 6).trim();
+                    currentSuit = suit;
+                    deckPanel.repaint();
+                }
+            }
+        }
+
+        private void onLeaderboard(String entries) {
+            StringBuilder sb = new StringBuilder("Leaderboard:\n");
+            int rank = 1;
+            for (String entry : entries.split(",")) {
+                int eq = entry.lastIndexOf('=');
+                if (eq < 0) continue;
+                sb.append("  ").append(rank++).append(". ").append(entry, 0, eq).append(" - ").append(entry.substring(eq + 1)).append(" points\n");
+            }
+            if (rank == 1) sb.append("  (no scores yet)\n");
+            chatArea.append(sb.toString());
+        }
+
+        private int[] decodeCards(byte[] payload, int offset) {
+            int[] cards = new int[payload.length - offset];
+            int n = 0;
+            for (int i = offset; i < payload.length; i++) {
+                if (Card.isValid(payload[i] & 0xFF)) cards[n++] = payload[i] & 0xFF;
+            }
+            return java.util.Arrays.copyOf(cards, n);
+        }
+
+        private int[] parseCards(String list) {
+            String[] names = list.split(",");
+            int[] cards = new int[names.length];
+            int n = 0;
+            for (String name : names) {
+                int card = Card.parse(name);
+                if (card != Card.NONE) cards[n++] = card;
+            }
+            return java.util.Arrays.copyOf(cards, n);
+        }
+
+        private void onSnapshot(String state) {
+            String table = "?", players = "", turn = null, top = null, suit = null;
+            boolean choose = false;
+            for (String field : state.split(";")) {
+                int eq = field.indexOf('=');
+                if (eq < 0) continue;
+                String key = field.substring(0, eq), value = field.substring(eq + 1);
+                switch (key) {
+                    case "table": table = value; break;
+                    case "players": players = value; break;
+                    case "turn": turn = value; break;
+                    case "top": top = value; break;
+                    case "suit": suit = value; break;
+                    case "choose": choose = value.equals("1"); break;
+                    case "hand": {
+                        String[] parts = value.split(":", 2);
+                        onHandSync(Integer.parseInt(parts[0]), parseCards(parts.length > 1 ? parts[1] : ""));
+                        break;
+                    }
+                    default: break;
+                }
+            }
+            chatArea.append("Back at table " + table + " with " + players.replace(",", ", ") + ".\n");
+            if (top != null) {
+                currentCardOnDeck = top;
+                currentSuit = suit;
+                SwingUtilities.invokeLater(() -> deckPanel.repaint());
+                chatArea.append("Current card: " + top + ". It's " + turn + "'s turn.\n");
+            }
+            myTurn = username.equals(turn);
+            if (choose) onChooseSuit();
+        }
+
+        private void onHandSync(int version, int[] cards) {
+            hand.clear();
+            for (int card : cards) {
+                hand.add(card);
+            }
+            handVersion = version;
+            deltaSync = true;
+            awaitingResync = false;
+            SwingUtilities.invokeLater(() -> updateCardPanel());
+        }
+
+        private void onHandDelta(int version, int card, boolean added) {
+            if (awaitingResync) return;
+            if (version != handVersion + 1) {
+                awaitingResync = true;
+                send("RESYNC");
+                return;
+            }
+            handVersion = version;
+            if (!Card.isValid(card)) return;
+            if (added) hand.add(card); else hand.remove(card);
+            SwingUtilities.invokeLater(() -> updateCardPanel());
+        }
+
+        private void onDrawnCard(String card) {
+            if (!deltaSync && Card.parse(card) != Card.NONE) hand.add(Card.parse(card));
+            chatArea.append("You drew: " + card + "\n");
+            SwingUtilities.invokeLater(() -> updateCardPanel());
+        }
+
+        private void onCurrentCard(String card) {
+            currentCardOnDeck = card;
+            SwingUtilities.invokeLater(() -> deckPanel.repaint());
+            chatArea.append("Current card: " + card + "\n");
+        }
+
+        private void onYourTurn() {
+            chatArea.append("It's your turn! Click a card to play or press 'Draw Card'.\n");
+            myTurn = true;
+        }
+
+        private void onChooseSuit() {
+            String[] suits = {"Hearts", "Diamonds", "Clubs", "Spades"};
+            String suit = (String) JOptionPane.showInputDialog(
+                frame, 
+                "Choose a suit:", 
+                "Suit Selection", 
+                JOptionPane.QUESTION_MESSAGE, 
+                null, 
+                suits, 
+                suits[0]);
+            if (suit != null) {
+                currentSuit = suit;
+                send("SUIT:" + suit);
+                chatArea.append("You chose suit: " + getSuitSymbol(suit) + "\n");
+            } else {
+                currentSuit = "Hearts";
+                send("SUIT:Hearts");
+                chatArea.append("You chose suit: " + getSuitSymbol("Hearts") + "\n");
+            }
+            deckPanel.repaint();
+        }
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new Client());
+        boolean useBinaryProtocol = args.length > 0 && args[0].equals("--binary");
+        SwingUtilities.invokeLater(() -> new Client(useBinaryProtocol));
     }
 }
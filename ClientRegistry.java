@@ -0,0 +1,109 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Copy-on-write list of connected clients. Joins and leaves copy the backing
+ * array under a lock; readers take the current array without locking, so a
+ * broadcast iterates a consistent snapshot and never blocks a join or leave.
+ */
+public class ClientRegistry<T> implements Iterable<T> {
+    private static final Object[] EMPTY = new Object[0];
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Object[] entries = EMPTY;
+
+    public void add(T entry) {
+        writeLock.lock();
+        try {
+            Object[] current = entries;
+            Object[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = entry;
+            entries = next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean remove(T entry) {
+        writeLock.lock();
+        try {
+            Object[] current = entries;
+            int index = indexOf(current, entry);
+            if (index < 0) return false;
+            Object[] next = new Object[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+            entries = next;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Puts replacement in entry's position, keeping the order of everyone else. */
+    public boolean replace(T entry, T replacement) {
+        writeLock.lock();
+        try {
+            Object[] current = entries;
+            int index = indexOf(current, entry);
+            if (index < 0) return false;
+            Object[] next = current.clone();
+            next[index] = replacement;
+            entries = next;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Object[] current = entries;
+        if (index < 0 || index >= current.length) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.length);
+        return (T) current[index];
+    }
+
+    public int indexOf(T entry) {
+        return indexOf(entries, entry);
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    /** Returns the current entries; the array must not be modified. */
+    public Object[] snapshot() {
+        return entries;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Object[] current = entries;
+        return new Iterator<>() {
+            private int index = 0;
+
+            public boolean hasNext() {
+                return index < current.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return (T) current[index++];
+            }
+        };
+    }
+
+    private static int indexOf(Object[] entries, Object entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,132 @@
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Scrolling text console that keeps only the last maxLines lines. Any
+ * thread may append; lines are queued and applied together by one Swing
+ * timer tick per frame, so a burst of network messages becomes a single
+ * document edit, caret move and repaint. The lines on screen are mirrored in
+ * a fixed ring, so trimming never has to scan the document.
+ */
+public class ConsolePane extends JScrollPane {
+    static final int FRAME_MILLIS = 16;
+
+    private final JTextArea textArea;
+    private final int maxLines;
+    private final String[] ring;
+    private int ringStart = 0;
+    private int ringCount = 0;
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private boolean clearPending = false;
+    private boolean flushScheduled = false;
+    private final Timer flushTimer;
+
+    public ConsolePane(int rows, int columns, int maxLines) {
+        if (maxLines < 1) throw new IllegalArgumentException("Max lines: " + maxLines);
+        this.textArea = new JTextArea(rows, columns);
+        this.maxLines = maxLines;
+        this.ring = new String[maxLines];
+        textArea.setEditable(false);
+        setViewportView(textArea);
+        flushTimer = new Timer(FRAME_MILLIS, e -> flush());
+        flushTimer.setRepeats(false);
+    }
+
+    public JTextArea textArea() {
+        return textArea;
+    }
+
+    /** Adds text like JTextArea.append, where each newline-terminated piece is one line. Safe from any thread. */
+    public void append(String text) {
+        int end = text.endsWith("\n") ? text.length() - 1 : text.length();
+        synchronized (pending) {
+            int from = 0;
+            while (true) {
+                int newline = text.indexOf('\n', from);
+                if (newline < 0 || newline >= end) {
+                    queue(text.substring(from, end));
+                    break;
+                }
+                queue(text.substring(from, newline));
+                from = newline + 1;
+            }
+            schedule();
+        }
+    }
+
+    /** Adds each element as one line. Safe from any thread. */
+    public void appendLines(List<String> lines) {
+        synchronized (pending) {
+            for (String line : lines) queue(line);
+            schedule();
+        }
+    }
+
+    /** Empties the console, including lines still waiting for the next frame. Safe from any thread. */
+    public void clear() {
+        synchronized (pending) {
+            pending.clear();
+            clearPending = true;
+            schedule();
+        }
+    }
+
+    private void queue(String line) {
+        if (pending.size() == maxLines) pending.poll();
+        pending.add(line);
+    }
+
+    private void schedule() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        flushTimer.restart();
+    }
+
+    /** Runs on the EDT: applies everything queued since the last frame as one edit. */
+    private void flush() {
+        String[] lines;
+        boolean clear;
+        synchronized (pending) {
+            lines = pending.toArray(new String[0]);
+            pending.clear();
+            clear = clearPending;
+            clearPending = false;
+            flushScheduled = false;
+        }
+        if (clear) {
+            ringStart = 0;
+            ringCount = 0;
+        }
+        int evicted = 0;
+        for (String line : lines) {
+            if (ringCount == maxLines) {
+                ring[ringStart] = line;
+                ringStart = (ringStart + 1) % maxLines;
+                evicted++;
+            } else {
+                ring[(ringStart + ringCount) % maxLines] = line;
+                ringCount++;
+            }
+        }
+        int shown = (clear ? 0 : Math.min(textArea.getLineCount() - 1, maxLines));
+        if (clear || evicted >= shown) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < ringCount; i++) sb.append(ring[(ringStart + i) % maxLines]).append('\n');
+            textArea.setText(sb.toString());
+        } else {
+            StringBuilder sb = new StringBuilder();
+            for (String line : lines) sb.append(line).append('\n');
+            try {
+                if (evicted > 0) textArea.getDocument().remove(0, textArea.getLineStartOffset(evicted));
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+            textArea.append(sb.toString());
+        }
+        textArea.setCaretPosition(textArea.getDocument().getLength());
+    }
+}
@@ -28,34 +28,58 @@ public class DLList<T> implements Iterable<T>{
 
     public void add(int index, T data) {
         if (index < 0 || index > size) throw new IndexOutOfBoundsException();
-        Node newNode = new Node(data);
         if (index == 0) {
-            newNode.next = head;
-            if (head != null) head.prev = newNode;
-            head = newNode;
-            if (tail == null) tail = newNode;
+            addFirst(data);
         } else if (index == size) {
-            tail.next = newNode;
-            newNode.prev = tail;
-            tail = newNode;
+            addLast(data);
         } else {
-            Node current = head;
-            for (int i = 0; i < index; i++) current = current.next;
+            Node current = node(index);
+            Node newNode = new Node(data);
             newNode.prev = current.prev;
             newNode.next = current;
             current.prev.next = newNode;
             current.prev = newNode;
+            size++;
+        }
+    }
+
+    public void addFirst(T data) {
+        Node newNode = new Node(data);
+        if (head == null) {
+            head = tail = newNode;
+        } else {
+            newNode.next = head;
+            head.prev = newNode;
+            head = newNode;
         }
         size++;
     }
 
+    public void addLast(T data) {
+        add(data);
+    }
+
+    public T removeFirst() {
+        if (head == null) throw new java.util.NoSuchElementException();
+        return unlink(head);
+    }
+
+    public T removeLast() {
+        if (tail == null) throw new java.util.NoSuchElementException();
+        return unlink(tail);
+    }
+
+    public T peekFirst() {
+        return head == null ? null : head.data;
+    }
+
+    public T peekLast() {
+        return tail == null ? null : tail.data;
+    }
+
     public T get(int index) {
         if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
-        Node current = head;
-        for (int i = 0; i < index; i++) {
-            current = current.next;
-        }
-        return current.data;
+        return node(index).data;
     }
 
     public int size() {
@@ -87,17 +111,7 @@ public class DLList<T> implements Iterable<T>{
         Node current = head;
         while (current != null) {
             if ((data == null && current.data == null) || (data != null && data.equals(current.data))) {
-                if (current.prev != null) {
-                    current.prev.next = current.next;
-                } else {
-                    head = current.next;
-                }
-                if (current.next != null) {
-                    current.next.prev = current.prev;
-                } else {
-                    tail = current.prev;
-                }
-                size--;
+                unlink(current);
                 return true;
             }
             current = current.next;
@@ -107,21 +121,34 @@ public class DLList<T> implements Iterable<T>{
 
     public T remove(int index) {
         if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
-        Node current = head;
-        for (int i = 0; i < index; i++) current = current.next;
-        T data = current.data;
-        if (current.prev != null) {
-            current.prev.next = current.next;
+        return unlink(node(index));
+    }
+
+    private Node node(int index) {
+        Node current;
+        if (index < size / 2) {
+            current = head;
+            for (int i = 0; i < index; i++) current = current.next;
+        } else {
+            current = tail;
+            for (int i = size - 1; i > index; i--) current = current.prev;
+        }
+        return current;
+    }
+
+    private T unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
         } else {
-            head = current.next;
+            head = node.next;
         }
-        if (current.next != null) {
-            current.next.prev = current.prev;
+        if (node.next != null) {
+            node.next.prev = node.prev;
         } else {
-            tail = current.prev;
+            tail = node.prev;
         }
         size--;
-        return data;
+        return node.data;
     }
 
     @Override
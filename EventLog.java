@@ -0,0 +1,236 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Server event stream. Any thread may log; events are claimed into a
+ * fixed ring with one CAS and published with one ordered write, so logging
+ * never takes a lock or waits on I/O. A single "event-log" thread drains the
+ * ring, appends timestamped lines to a rolling file and hands each batch to
+ * the listeners, such as the Swing console. When the ring is full the event
+ * is dropped and counted rather than stalling the caller.
+ */
+public class EventLog {
+    static final int DEFAULT_CAPACITY = 8192;
+    static final long DEFAULT_FILE_BYTES = 10L << 20;
+    static final int DEFAULT_FILES = 5;
+    private static final int MAX_BATCH = 1024;
+    private static final long IDLE_NANOS = 10_000_000L;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    private final int mask;
+    private final String[] events;
+    private final long[] times;
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+    private final LongAdder dropped = new LongAdder();
+    private final List<Consumer<List<String>>> listeners = new CopyOnWriteArrayList<>();
+    private final Path file;
+    private final long maxFileBytes;
+    private final int keepFiles;
+    private BufferedWriter writer;
+    private long fileBytes;
+    private long droppedReported = 0;
+    private volatile boolean running = true;
+    private final Thread drainer;
+
+    private EventLog(int capacity, Path file, long maxFileBytes, int keepFiles) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        this.mask = capacity - 1;
+        this.events = new String[capacity];
+        this.times = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.keepFiles = keepFiles;
+        this.drainer = new Thread(this::drainLoop, "event-log");
+        this.drainer.setDaemon(true);
+    }
+
+    /**
+     * Logs to file, rolling it to file.1 ... file.(keepFiles - 1) once it
+     * grows past maxFileBytes.
+     */
+    public static EventLog open(Path file, long maxFileBytes, int keepFiles) throws IOException {
+        EventLog log = new EventLog(DEFAULT_CAPACITY, file, maxFileBytes, keepFiles);
+        log.openFile();
+        log.drainer.start();
+        return log;
+    }
+
+    public static EventLog open(Path file) throws IOException {
+        return open(file, DEFAULT_FILE_BYTES, DEFAULT_FILES);
+    }
+
+    /** An event stream with no file, for embedded servers and tools; events only reach the listeners. */
+    public static EventLog inMemory() {
+        EventLog log = new EventLog(DEFAULT_CAPACITY, null, 0, 0);
+        log.drainer.start();
+        return log;
+    }
+
+    public void log(String event) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        int i = (int) t & mask;
+        events[i] = event;
+        times[i] = System.currentTimeMillis();
+        published.lazySet(i, t + 1);
+        if (t - head == (mask + 1) >> 2) LockSupport.unpark(drainer);
+    }
+
+    /** Logs event followed by the error's stack trace. */
+    public void log(String event, Throwable error) {
+        StringWriter trace = new StringWriter();
+        error.printStackTrace(new PrintWriter(trace));
+        log(event + "\n" + trace.toString().trim());
+    }
+
+    /** Receives every later event in order, in batches, on the event-log thread. */
+    public void addListener(Consumer<List<String>> listener) {
+        listeners.add(listener);
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** Drains what has been logged so far, then stops the writer and closes the file. */
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<String> batch = new ArrayList<>(MAX_BATCH);
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            boolean stopping = !running;
+            batch.clear();
+            long h = head;
+            while (batch.size() < MAX_BATCH) {
+                int i = (int) h & mask;
+                if (published.get(i) != h + 1) break;
+                String event = events[i];
+                long time = times[i];
+                events[i] = null;
+                h++;
+                head = h;
+                batch.add(event);
+                write(line, time, event);
+            }
+            long lost = dropped.sum();
+            if (lost != droppedReported) {
+                write(line, System.currentTimeMillis(), (lost - droppedReported) + " log events dropped; the log ring was full.");
+                droppedReported = lost;
+            }
+            if (!batch.isEmpty()) {
+                List<String> view = Collections.unmodifiableList(new ArrayList<>(batch));
+                for (Consumer<List<String>> listener : listeners) {
+                    try {
+                        listener.accept(view);
+                    } catch (RuntimeException e) {
+                        // a broken viewer must not stop logging
+                    }
+                }
+                if (batch.size() == MAX_BATCH) continue;
+            }
+            flush();
+            if (stopping) break;
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+        closeFile();
+    }
+
+    private void write(StringBuilder line, long time, String event) {
+        if (writer == null) return;
+        line.setLength(0);
+        TIMESTAMP.formatTo(Instant.ofEpochMilli(time), line);
+        line.append(' ').append(event).append('\n');
+        try {
+            writer.append(line);
+            fileBytes += line.length();
+            if (fileBytes >= maxFileBytes) roll();
+        } catch (IOException e) {
+            System.err.println("Event log " + file + " failed: " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+        writer = null;
+        Files.deleteIfExists(rolled(keepFiles - 1));
+        for (int n = keepFiles - 2; n >= 1; n--) {
+            if (Files.exists(rolled(n))) Files.move(rolled(n), rolled(n + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (keepFiles > 1) {
+            Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        openFile();
+    }
+
+    private Path rolled(int n) {
+        return Paths.get(file + "." + n);
+    }
+
+    private void openFile() throws IOException {
+        if (file == null) return;
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileBytes = Files.size(file);
+    }
+
+    private void flush() {
+        if (writer == null) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Event log " + file + " failed: " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void closeFile() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // nothing left to report it to
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,404 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Binary journal of every game state transition. Records are
+ * [type u8][payload length u16][table id i32][payload]; seats are indexes
+ * into the player list of the most recent DEAL or RESTORE for that table
+ * and cards are single bytes. Writes go to a buffer that a background
+ * thread flushes every FLUSH_INTERVAL_MS, so a crashed process loses at
+ * most that much history and game loops never wait on the file.
+ *
+ * Replaying the records through GameState rebuilds every game that was
+ * still in progress; a torn record at the end of the file is ignored.
+ */
+public class GameJournal {
+    static final int DEAL = 1;
+    static final int TURN = 2;
+    static final int PLAY = 3;
+    static final int DRAW = 4;
+    static final int SUIT = 5;
+    static final int WIN = 6;
+    static final int RESTART = 7;
+    static final int END = 8;
+    static final int LEAVE = 9;
+    static final int RESTORE = 10;
+
+    static final long FLUSH_INTERVAL_MS = 100;
+    private static final int MAGIC = 0x43384A4E; // "C8JN"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+    private static final int RECORD_HEADER_LENGTH = 7;
+
+    /** Journal that records nothing, for servers started without one. */
+    static final GameJournal DISABLED = new GameJournal(null, message -> { });
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream payload = new DataOutputStream(record);
+    private final Consumer<String> log;
+    private DataOutputStream out;
+
+    private GameJournal(OutputStream out, Consumer<String> log) {
+        this.out = out == null ? null : new DataOutputStream(out);
+        this.log = log;
+    }
+
+    /**
+     * Starts a fresh journal at path, keeping the previous one as path.prev,
+     * and flushes it in the background until close().
+     */
+    public static GameJournal open(Path path, Consumer<String> log) throws IOException {
+        if (Files.exists(path)) {
+            Files.move(path, path.resolveSibling(path.getFileName() + ".prev"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        OutputStream file = Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        GameJournal journal = new GameJournal(new BufferedOutputStream(file, 64 * 1024), log);
+        journal.out.writeInt(MAGIC);
+        journal.out.writeInt(VERSION);
+        journal.out.flush();
+        Thread flusher = new Thread(journal::flushLoop, "journal-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+        return journal;
+    }
+
+    /** Returns the games that were still in progress when the journal at path stopped. */
+    public static List<GameState> recover(Path path, Consumer<String> log) throws IOException {
+        List<GameState> games = new ArrayList<>();
+        if (!Files.exists(path)) return games;
+        Map<Integer, GameState> byTable = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) throw new IOException("Journal too large to map: " + length);
+            apply(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), byTable, log, null);
+        }
+        games.addAll(byTable.values());
+        games.sort((a, b) -> Integer.compare(a.tableId, b.tableId));
+        return games;
+    }
+
+    /**
+     * Applies every complete record in data to games, keyed by table id, and
+     * returns how many were read. A record that breaks the rules is reported
+     * to problems and drops its game; trace, if not null, gets one line per
+     * record.
+     */
+    static long apply(ByteBuffer data, Map<Integer, GameState> games, Consumer<String> problems, Consumer<String> trace) {
+        if (data.remaining() < HEADER_LENGTH || data.getInt() != MAGIC || data.getInt() != VERSION) {
+            problems.accept("Not a game journal.");
+            return 0;
+        }
+        long records = 0;
+        while (data.remaining() >= RECORD_HEADER_LENGTH) {
+            int type = data.get() & 0xFF;
+            int length = data.getShort() & 0xFFFF;
+            int tableId = data.getInt();
+            if (data.remaining() < length) break;
+            int end = data.position() + length;
+            try {
+                applyRecord(type, tableId, data, games, trace);
+            } catch (RuntimeException e) {
+                games.remove(tableId);
+                problems.accept("Record " + records + ", table " + tableId + ": " + e.getMessage());
+            }
+            data.position(end);
+            records++;
+        }
+        return records;
+    }
+
+    private static void applyRecord(int type, int tableId, ByteBuffer data, Map<Integer, GameState> games, Consumer<String> trace) {
+        GameState game = games.get(tableId);
+        switch (type) {
+            case DEAL: {
+                String[] names = readNames(data);
+                int[] deck = readCards(data);
+                game = new GameState(tableId);
+                game.deal(names, deck, deck.length);
+                games.put(tableId, game);
+                if (trace != null) trace.accept("table " + tableId + ": deal to " + String.join(", ", names) + ", first card " + Card.name(game.discard.peek()));
+                break;
+            }
+            case RESTORE: {
+                game = readState(tableId, data);
+                games.put(tableId, game);
+                if (trace != null) trace.accept("table " + tableId + ": restore " + String.join(", ", game.players));
+                break;
+            }
+            case TURN: {
+                int seat = data.get() & 0xFF;
+                require(game).turn(seat);
+                if (trace != null) trace.accept("table " + tableId + ": turn " + game.players[seat]);
+                break;
+            }
+            case PLAY: {
+                int seat = data.get() & 0xFF;
+                int card = data.get() & 0xFF;
+                require(game).play(seat, card);
+                if (trace != null) trace.accept("table " + tableId + ": " + game.players[seat] + " plays " + Card.name(card));
+                break;
+            }
+            case DRAW: {
+                int seat = data.get() & 0xFF;
+                int card = data.get() & 0xFF;
+                require(game).draw(seat, card);
+                if (trace != null) trace.accept("table " + tableId + ": " + game.players[seat] + " draws " + Card.name(card));
+                break;
+            }
+            case SUIT: {
+                int seat = data.get() & 0xFF;
+                int suit = data.get() & 0xFF;
+                require(game).chooseSuit(seat, suit);
+                if (trace != null) trace.accept("table " + tableId + ": " + game.players[seat] + " chooses " + Card.suitName(suit));
+                break;
+            }
+            case WIN: {
+                int seat = data.get() & 0xFF;
+                int points = data.getInt();
+                require(game).win(seat);
+                games.remove(tableId);
+                if (trace != null) trace.accept("table " + tableId + ": " + game.players[seat] + " wins " + points + " points");
+                break;
+            }
+            case LEAVE: {
+                int seat = data.get() & 0xFF;
+                if (game != null) {
+                    String name = game.players[seat];
+                    game.leave(seat);
+                    if (game.seatCount() == 0) games.remove(tableId);
+                    if (trace != null) trace.accept("table " + tableId + ": " + name + " leaves");
+                }
+                break;
+            }
+            case RESTART:
+            case END:
+                games.remove(tableId);
+                if (trace != null) trace.accept("table " + tableId + (type == RESTART ? ": restart" : ": end"));
+                break;
+            default:
+                throw new IllegalStateException("unknown record type " + type);
+        }
+    }
+
+    private static GameState require(GameState game) {
+        if (game == null) throw new IllegalStateException("no game in progress");
+        return game;
+    }
+
+    public void deal(int tableId, String[] players, int[] deck, int deckSize) {
+        lock.lock();
+        try {
+            if (out == null) return;
+            writeNames(players);
+            writeCards(deck, deckSize);
+            writeRecord(DEAL, tableId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void restore(GameState game) {
+        lock.lock();
+        try {
+            if (out == null) return;
+            writeNames(game.players);
+            for (Hand hand : game.hands) {
+                int[] cards = new int[hand.size()];
+                int n = 0;
+                for (int card = hand.nextCard(0); card >= 0; card = hand.nextCard(card + 1)) cards[n++] = card;
+                writeCards(cards, n);
+            }
+            writeCards(game.deck, game.deckSize);
+            writeCards(game.discard.toArray(), game.discard.size());
+            payload.writeByte(game.currentSuit);
+            payload.writeByte(game.currentPlayer);
+            payload.writeByte(game.waitingForSuitSeat);
+            payload.writeByte(game.waitingForSuitCard);
+            writeRecord(RESTORE, game.tableId);
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void turn(int tableId, int seat) {
+        write(TURN, tableId, seat);
+    }
+
+    public void play(int tableId, int seat, int card) {
+        write(PLAY, tableId, seat, card);
+    }
+
+    public void draw(int tableId, int seat, int card) {
+        write(DRAW, tableId, seat, card);
+    }
+
+    public void suit(int tableId, int seat, int suit) {
+        write(SUIT, tableId, seat, suit);
+    }
+
+    public void win(int tableId, int seat, int points) {
+        lock.lock();
+        try {
+            if (out == null) return;
+            payload.writeByte(seat);
+            payload.writeInt(points);
+            writeRecord(WIN, tableId);
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void leave(int tableId, int seat) {
+        write(LEAVE, tableId, seat);
+    }
+
+    public void restart(int tableId) {
+        write(RESTART, tableId);
+    }
+
+    public void end(int tableId) {
+        write(END, tableId);
+    }
+
+    /** Flushes buffered records and closes the file. */
+    public void close() {
+        lock.lock();
+        try {
+            if (out == null) return;
+            out.close();
+            out = null;
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(int type, int tableId, int... bytes) {
+        lock.lock();
+        try {
+            if (out == null) return;
+            for (int b : bytes) payload.writeByte(b);
+            writeRecord(type, tableId);
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeRecord(int type, int tableId) {
+        try {
+            out.writeByte(type);
+            out.writeShort(record.size());
+            out.writeInt(tableId);
+            record.writeTo(out);
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            record.reset();
+        }
+    }
+
+    private void writeNames(String[] names) {
+        try {
+            payload.writeByte(names.length);
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                payload.writeShort(bytes.length);
+                payload.write(bytes);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeCards(int[] cards, int count) {
+        try {
+            payload.writeByte(count);
+            for (int i = 0; i < count; i++) payload.writeByte(cards[i]);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private static String[] readNames(ByteBuffer data) {
+        String[] names = new String[data.get() & 0xFF];
+        for (int i = 0; i < names.length; i++) {
+            byte[] bytes = new byte[data.getShort() & 0xFFFF];
+            data.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    private static int[] readCards(ByteBuffer data) {
+        int[] cards = new int[data.get() & 0xFF];
+        for (int i = 0; i < cards.length; i++) cards[i] = data.get() & 0xFF;
+        return cards;
+    }
+
+    private static GameState readState(int tableId, ByteBuffer data) {
+        GameState game = new GameState(tableId);
+        game.players = readNames(data);
+        game.hands = new Hand[game.players.length];
+        for (int seat = 0; seat < game.hands.length; seat++) {
+            game.hands[seat] = new Hand();
+            for (int card : readCards(data)) game.hands[seat].add(card);
+        }
+        game.deck = readCards(data);
+        game.deckSize = game.deck.length;
+        for (int card : readCards(data)) game.discard.add(card);
+        game.currentSuit = data.get();
+        game.currentPlayer = data.get();
+        game.waitingForSuitSeat = data.get();
+        game.waitingForSuitCard = data.get();
+        return game;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (out == null) return;
+                out.flush();
+            } catch (IOException e) {
+                fail(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        log.accept("Game journal disabled after write error: " + e.getMessage());
+        out = null;
+        record.reset();
+    }
+}
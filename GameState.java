@@ -0,0 +1,225 @@
+/**
+ * The Crazy Eights rules over plain state: seats, hands, deck, discard pile,
+ * suit and turn. Nothing here touches sockets, so the same code checks live
+ * moves, replays the journal and drives the offline Simulator.
+ *
+ * The try* methods report a broken rule with a result code and leave the
+ * state untouched; after the first deal they allocate nothing, so one
+ * instance can be reused for millions of games. The journal methods (play,
+ * draw, chooseSuit, win) throw IllegalStateException instead, since a
+ * journal describing an illegal move means the server accepted one.
+ */
+public class GameState {
+    static final int OK = 0;
+    static final int NOT_IN_HAND = 1;
+    static final int NOT_PLAYABLE = 2;
+    static final int SUIT_PENDING = 3;
+    static final int NOT_CHOOSING = 4;
+    static final int INVALID_SUIT = 5;
+    static final int CARDS_PER_HAND = 5;
+
+    final int tableId;
+    String[] players = new String[0];
+    Hand[] hands = new Hand[0];
+    int[] deck = new int[0];
+    int deckSize = 0;
+    final IntArrayList discard = new IntArrayList(Card.DECK_SIZE);
+    int currentSuit = Card.NONE;
+    int currentPlayer = -1;
+    int waitingForSuitSeat = -1;
+    int waitingForSuitCard = Card.NONE;
+
+    public GameState(int tableId) {
+        this.tableId = tableId;
+    }
+
+    /** Checks whether card may leave hand onto topCard, without changing anything. */
+    static int checkPlay(Hand hand, int card, int topCard, int currentSuit) {
+        if (!Card.isValid(card) || !hand.contains(card)) return NOT_IN_HAND;
+        return Card.isPlayable(card, topCard, currentSuit) ? OK : NOT_PLAYABLE;
+    }
+
+    /** Penalty points left in a hand, as awarded to the winner. */
+    static int handPoints(Hand hand) {
+        int points = 0;
+        for (int card = hand.nextCard(0); card >= 0; card = hand.nextCard(card + 1)) {
+            points += Card.points(card % Card.DECK_SIZE);
+        }
+        return points;
+    }
+
+    /** Deals to the named seats; see deal(int, int[], int). */
+    public void deal(String[] names, int[] shuffled, int length) {
+        if (names.length == 0) throw new IllegalStateException("deal with no players");
+        deal(names.length, shuffled, length);
+        players = names.clone();
+    }
+
+    /**
+     * Deals CARDS_PER_HAND cards to each seat from the end of shuffled, then
+     * turns up the first discard. Hands and the deck buffer are reused when
+     * the seat count has not changed.
+     */
+    public void deal(int seatCount, int[] shuffled, int length) {
+        if (length < seatCount * CARDS_PER_HAND + 1) throw new IllegalStateException("deck of " + length + " is too small to deal");
+        if (hands.length != seatCount) {
+            hands = new Hand[seatCount];
+            for (int seat = 0; seat < seatCount; seat++) hands[seat] = new Hand();
+            if (players.length != seatCount) players = new String[seatCount];
+        } else {
+            for (Hand hand : hands) hand.clear();
+        }
+        if (deck.length < length) deck = new int[length];
+        System.arraycopy(shuffled, 0, deck, 0, length);
+        deckSize = length;
+        discard.clear();
+        currentPlayer = -1;
+        waitingForSuitSeat = -1;
+        waitingForSuitCard = Card.NONE;
+        for (int seat = 0; seat < seatCount; seat++) {
+            for (int i = 0; i < CARDS_PER_HAND; i++) {
+                hands[seat].add(deck[--deckSize]);
+            }
+        }
+        discard.push(deck[--deckSize]);
+        currentSuit = Card.suit(discard.peek());
+    }
+
+    public void turn(int seat) {
+        checkSeat(seat);
+        currentPlayer = seat;
+    }
+
+    /** Moves the turn to the next seat and returns it. */
+    public int advance() {
+        currentPlayer = (currentPlayer + 1) % players.length;
+        return currentPlayer;
+    }
+
+    public int topCard() {
+        return discard.peek();
+    }
+
+    public Hand hand(int seat) {
+        return hands[seat];
+    }
+
+    public boolean isWaitingForSuit() {
+        return waitingForSuitSeat >= 0;
+    }
+
+    /** Plays card from seat's hand. After an eight the seat must choose a suit before anything else happens. */
+    public int tryPlay(int seat, int card) {
+        if (waitingForSuitSeat >= 0) return SUIT_PENDING;
+        int result = checkPlay(hands[seat], card, discard.peek(), currentSuit);
+        if (result != OK) return result;
+        hands[seat].remove(card);
+        discard.push(card);
+        if (Card.isEight(card)) {
+            waitingForSuitSeat = seat;
+            waitingForSuitCard = card;
+        } else {
+            currentSuit = Card.suit(card);
+        }
+        return OK;
+    }
+
+    /** Moves the top of the deck into seat's hand and returns it, or Card.NONE when the deck is empty. */
+    public int tryDraw(int seat) {
+        if (deckSize == 0) return Card.NONE;
+        int card = deck[--deckSize];
+        hands[seat].add(card);
+        return card;
+    }
+
+    public int tryChooseSuit(int seat, int suit) {
+        if (waitingForSuitSeat != seat) return NOT_CHOOSING;
+        if (Card.suitName(suit) == null) return INVALID_SUIT;
+        currentSuit = suit;
+        waitingForSuitSeat = -1;
+        waitingForSuitCard = Card.NONE;
+        return OK;
+    }
+
+    public boolean hasWon(int seat) {
+        return hands[seat].isEmpty();
+    }
+
+    /** Points the winner collects: everything still held by every seat. */
+    public int pointsOnTable() {
+        int points = 0;
+        for (Hand hand : hands) points += handPoints(hand);
+        return points;
+    }
+
+    public void play(int seat, int card) {
+        checkSeat(seat);
+        switch (tryPlay(seat, card)) {
+            case OK:
+                return;
+            case SUIT_PENDING:
+                throw new IllegalStateException(players[seat] + " played while a suit choice was pending");
+            case NOT_IN_HAND:
+                throw new IllegalStateException(players[seat] + " played " + Card.name(card) + " which is not in their hand");
+            default:
+                throw new IllegalStateException(players[seat] + " played " + Card.name(card) + " on " + Card.name(discard.peek()));
+        }
+    }
+
+    public void draw(int seat, int card) {
+        checkSeat(seat);
+        if (deckSize == 0) throw new IllegalStateException(players[seat] + " drew from an empty deck");
+        int expected = deck[deckSize - 1];
+        if (expected != card) {
+            throw new IllegalStateException(players[seat] + " drew " + Card.name(card) + " but the deck held " + Card.name(expected));
+        }
+        tryDraw(seat);
+    }
+
+    public void chooseSuit(int seat, int suit) {
+        checkSeat(seat);
+        int result = tryChooseSuit(seat, suit);
+        if (result == NOT_CHOOSING) throw new IllegalStateException(players[seat] + " chose a suit out of turn");
+        if (result == INVALID_SUIT) throw new IllegalStateException(players[seat] + " chose invalid suit " + suit);
+    }
+
+    public void win(int seat) {
+        checkSeat(seat);
+        if (!hasWon(seat)) throw new IllegalStateException(players[seat] + " won while still holding cards");
+    }
+
+    /**
+     * Removes a seat, shifting the turn the same way the live table does.
+     * Returns true when the seat held the turn, which the caller then has to
+     * pass on with advance(); any other seat leaving keeps the turn where it is.
+     */
+    public boolean leave(int seat) {
+        checkSeat(seat);
+        boolean hadTurn = seat == currentPlayer;
+        int n = players.length - 1;
+        String[] names = new String[n];
+        Hand[] remaining = new Hand[n];
+        System.arraycopy(players, 0, names, 0, seat);
+        System.arraycopy(players, seat + 1, names, seat, n - seat);
+        System.arraycopy(hands, 0, remaining, 0, seat);
+        System.arraycopy(hands, seat + 1, remaining, seat, n - seat);
+        players = names;
+        hands = remaining;
+        if (seat <= currentPlayer) currentPlayer--;
+        if (waitingForSuitSeat == seat) {
+            waitingForSuitSeat = -1;
+            waitingForSuitCard = Card.NONE;
+        } else if (waitingForSuitSeat > seat) {
+            waitingForSuitSeat--;
+        }
+        return hadTurn;
+    }
+
+    public int seatCount() {
+        return players.length;
+    }
+
+    private void checkSeat(int seat) {
+        if (seat < 0 || seat >= players.length) throw new IllegalStateException("no player in seat " + seat);
+    }
+}
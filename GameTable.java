@@ -0,0 +1,548 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One Crazy Eights game. Every command is posted to the table's mailbox and
+ * run one at a time on the shared game executor, so game state is only ever
+ * touched by a single logical thread and needs no locking.
+ *
+ * The rules live in GameState, seated in the same order as players; the
+ * table turns its result codes into messages and journal records and keeps
+ * each player's delta-synced hand in step with the seat's hand.
+ */
+public class GameTable {
+    static final int MAX_PLAYERS = 6;
+
+    private final int id;
+    private final Executor executor;
+    private final GameJournal journal;
+    private final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final AtomicInteger mailboxDepth = new AtomicInteger();
+    private final AtomicLong commandsProcessed = new AtomicLong();
+    private final AtomicLong processingNanos = new AtomicLong();
+    private volatile long maxProcessingNanos = 0;
+    private final AtomicInteger seats = new AtomicInteger();
+    private final ClientRegistry<Server.ClientHandler> players = new ClientRegistry<>();
+    private final ClientRegistry<Server.ClientHandler> absent = new ClientRegistry<>();
+    private final DLList<String> readyPlayers = new DLList<>();
+    private final ShuffleEngine shuffler;
+    private GameState game;
+    private volatile boolean gameStarted = false;
+    private volatile boolean resuming = false;
+    private String[] resumeNames;
+    private boolean[] resumeClaimed;
+    private Server.ClientHandler[] resumeSeats;
+    private long reclaimDeadline;
+
+    public GameTable(int id, ShuffleEngine shuffler, Executor executor, GameJournal journal) {
+        this.id = id;
+        this.shuffler = shuffler;
+        this.executor = executor;
+        this.journal = journal;
+        this.game = new GameState(id);
+    }
+
+    /**
+     * Sets the table up to continue a game recovered from the journal. The
+     * game resumes once every seated player has logged back in, or is
+     * abandoned after the server's reconnect grace period. Must be called
+     * before the table is shared.
+     */
+    public void restore(GameState state, ScheduledExecutorService timers) {
+        game = state;
+        resumeNames = state.players.clone();
+        resumeClaimed = new boolean[resumeNames.length];
+        resumeSeats = new Server.ClientHandler[resumeNames.length];
+        gameStarted = true;
+        resuming = true;
+        journal.restore(state);
+        reclaimDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Server.RECONNECT_GRACE_SECONDS);
+        timers.schedule(() -> submit(this::abandonResume), Server.RECONNECT_GRACE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Claims the recovered seat held by username; called under the server's
+     * table lock. Session tokens do not survive a restart, so the name is all
+     * there is to go on, and it is only honoured within the grace period.
+     */
+    public boolean tryReclaimSeat(String username) {
+        if (!resuming || System.nanoTime() - reclaimDeadline >= 0) return false;
+        for (int i = 0; i < resumeNames.length; i++) {
+            if (!resumeClaimed[i] && resumeNames[i].equals(username)) {
+                resumeClaimed[i] = true;
+                seats.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isResuming() {
+        return resuming;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean tryReserveSeat() {
+        while (true) {
+            int taken = seats.get();
+            if (gameStarted || taken >= MAX_PLAYERS) return false;
+            if (seats.compareAndSet(taken, taken + 1)) return true;
+        }
+    }
+
+    public boolean isEmpty() {
+        return seats.get() == 0 && !resuming;
+    }
+
+    public int playerCount() {
+        return seats.get();
+    }
+
+    public boolean isGameStarted() {
+        return gameStarted;
+    }
+
+    public int mailboxDepth() {
+        return mailboxDepth.get();
+    }
+
+    public long commandsProcessed() {
+        return commandsProcessed.get();
+    }
+
+    public long averageProcessingNanos() {
+        long count = commandsProcessed.get();
+        return count == 0 ? 0 : processingNanos.get() / count;
+    }
+
+    public long maxProcessingNanos() {
+        return maxProcessingNanos;
+    }
+
+    public void join(Server.ClientHandler player) {
+        submit(() -> {
+            players.add(player);
+            broadcast(player.getUsername() + " has joined the game!");
+            // the seat was reserved before a queued start ran; watch this game, play the next
+            if (gameStarted) player.sendMessage("A game is already under way; you will be dealt in when the next one starts.");
+        });
+    }
+
+    /**
+     * Keeps a dropped player's seat and hand while a game is running; their
+     * turns are skipped until they resume or leave. Returns false when there
+     * is no running game, in which case the caller should leave instead.
+     */
+    public boolean suspend(Server.ClientHandler player) {
+        if (!gameStarted || resuming) return false;
+        submit(() -> doSuspend(player));
+        return true;
+    }
+
+    /** Hands a suspended player's seat, hand and turn position over to their new connection. */
+    public void resume(Server.ClientHandler previous, Server.ClientHandler next) {
+        submit(() -> doResume(previous, next));
+    }
+
+    public void rejoin(Server.ClientHandler player) {
+        submit(() -> doRejoin(player));
+    }
+
+    public void leave(Server.ClientHandler player) {
+        seats.decrementAndGet();
+        if (resuming) {
+            for (int i = 0; i < resumeNames.length; i++) {
+                if (resumeClaimed[i] && resumeNames[i].equals(player.getUsername())) {
+                    resumeClaimed[i] = false;
+                    break;
+                }
+            }
+        }
+        submit(() -> doLeave(player));
+    }
+
+    public void markReady(String username) {
+        submit(() -> {
+            if (!readyPlayers.contains(username)) readyPlayers.add(username);
+            broadcast(username + " is ready to start!");
+            if (!gameStarted) doStartGame();
+        });
+    }
+
+    public void startGame() {
+        submit(this::doStartGame);
+    }
+
+    public void restartGame() {
+        submit(this::doRestartGame);
+    }
+
+    public void endGame() {
+        submit(this::doEndGame);
+    }
+
+    public void handleDraw(Server.ClientHandler player) {
+        submit(() -> doDraw(player));
+    }
+
+    public void handlePlayerMove(Server.ClientHandler player, int card) {
+        long received = System.nanoTime();
+        submit(() -> {
+            doPlayerMove(player, card);
+            Server.metrics.moveHandled(System.nanoTime() - received);
+        });
+    }
+
+    public void handleSuitChoice(Server.ClientHandler player, int suit) {
+        submit(() -> doSuitChoice(player, suit));
+    }
+
+    public void resyncHand(Server.ClientHandler player) {
+        submit(player::enableDeltaSync);
+    }
+
+    public void broadcast(String message) {
+        long start = System.nanoTime();
+        Object[] recipients = players.snapshot();
+        for (Object player : recipients) {
+            ((Server.ClientHandler) player).sendMessage(message);
+        }
+        Server.metrics.broadcastSent(recipients.length, System.nanoTime() - start);
+    }
+
+    private void submit(Runnable command) {
+        mailboxDepth.incrementAndGet();
+        mailbox.add(command);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            Runnable command;
+            while ((command = mailbox.poll()) != null) {
+                mailboxDepth.decrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    // details stay in the server log; players only learn the action failed
+                    Server.events.log("Table " + id + " command failed", e);
+                    broadcast("Server error: that action could not be completed.");
+                }
+                long elapsed = System.nanoTime() - start;
+                commandsProcessed.incrementAndGet();
+                processingNanos.addAndGet(elapsed);
+                if (elapsed > maxProcessingNanos) maxProcessingNanos = elapsed;
+            }
+            scheduled.set(false);
+        } while (!mailbox.isEmpty() && scheduled.compareAndSet(false, true));
+    }
+
+    private void doRejoin(Server.ClientHandler player) {
+        if (!resuming) {
+            players.add(player);
+            broadcast(player.getUsername() + " has joined the game!");
+            return;
+        }
+        int seat = -1;
+        for (int i = 0; i < resumeNames.length && seat < 0; i++) {
+            if (resumeSeats[i] == null && resumeNames[i].equals(player.getUsername())) seat = i;
+        }
+        resumeSeats[seat] = player;
+        dealTo(player, game.hand(seat));
+        StringBuilder missing = new StringBuilder();
+        for (int i = 0; i < resumeSeats.length; i++) {
+            if (resumeSeats[i] == null) missing.append(missing.length() == 0 ? "" : ", ").append(resumeNames[i]);
+        }
+        if (missing.length() > 0) {
+            for (Server.ClientHandler waiting : resumeSeats) {
+                if (waiting != null) waiting.sendMessage("Waiting for " + missing + " to reconnect to resume game " + id + "...");
+            }
+            return;
+        }
+        resuming = false;
+        for (Server.ClientHandler seated : resumeSeats) {
+            players.add(seated);
+            seated.sendHand();
+        }
+        broadcast("Game " + id + " resumed after a server restart.");
+        broadcast("CURRENT_CARD:" + Card.name(game.topCard()));
+        if (game.isWaitingForSuit()) {
+            players.get(game.waitingForSuitSeat).sendMessage("CHOOSE_SUIT");
+        } else {
+            Server.ClientHandler currentPlayer = players.get(game.currentPlayer);
+            broadcast("It's " + currentPlayer.getUsername() + "'s turn.");
+            currentPlayer.sendMessage("YOUR_TURN");
+        }
+        clearResume();
+    }
+
+    private void abandonResume() {
+        if (!resuming) return;
+        resuming = false;
+        for (Server.ClientHandler seated : resumeSeats) {
+            if (seated != null) players.add(seated);
+        }
+        clearResume();
+        doEndGame();
+        broadcast("Not every player came back in time, so the recovered game was abandoned. Press Start to play a new game.");
+    }
+
+    private void clearResume() {
+        resumeSeats = null;
+    }
+
+    private boolean awaitingResume(Server.ClientHandler player) {
+        if (!resuming) return false;
+        player.sendMessage("The game resumes once every player has reconnected.");
+        return true;
+    }
+
+    private void doSuspend(Server.ClientHandler player) {
+        int index = players.indexOf(player);
+        if (index < 0) return;
+        absent.add(player);
+        broadcast(player.getUsername() + " lost connection; their seat is held for "
+                + Server.RECONNECT_GRACE_SECONDS + " seconds.");
+        if (!gameStarted) return;
+        if (game.waitingForSuitSeat == index) {
+            doSuitChoice(player, Card.suit(game.waitingForSuitCard));
+        } else if (index == game.currentPlayer && !game.isWaitingForSuit()) {
+            nextTurn();
+        }
+    }
+
+    private void doResume(Server.ClientHandler previous, Server.ClientHandler next) {
+        absent.remove(previous);
+        if (!players.replace(previous, next)) players.add(next);
+        next.adoptHand(previous.getHand());
+        next.sendMessage(snapshot(next));
+        broadcast(next.getUsername() + " reconnected.");
+    }
+
+    /** Everything a reconnecting client needs to redraw the table, as one message. */
+    private String snapshot(Server.ClientHandler player) {
+        StringBuilder sb = new StringBuilder("SNAPSHOT:table=").append(id);
+        sb.append(";players=").append(String.join(",", playerNames()));
+        if (gameStarted && game.currentPlayer >= 0 && game.currentPlayer < players.size()) {
+            sb.append(";turn=").append(players.get(game.currentPlayer).getUsername());
+            sb.append(";top=").append(Card.name(game.topCard()));
+            sb.append(";suit=").append(Card.suitName(game.currentSuit));
+            sb.append(";choose=").append(game.isWaitingForSuit() && game.waitingForSuitSeat == players.indexOf(player) ? 1 : 0);
+        }
+        sb.append(";hand=").append(player.handSnapshot());
+        return sb.toString();
+    }
+
+    private void doLeave(Server.ClientHandler player) {
+        if (resuming) {
+            for (int i = 0; i < resumeSeats.length; i++) {
+                if (resumeSeats[i] == player) resumeSeats[i] = null;
+            }
+            return;
+        }
+        int index = players.indexOf(player);
+        if (index < 0) return;
+        boolean seated = gameStarted && index < game.seatCount();
+        players.remove(player);
+        absent.remove(player);
+        if (seated) journal.leave(id, index);
+        readyPlayers.remove(player.getUsername());
+        boolean hadTurn = seated && game.leave(index);
+        if (players.isEmpty() || (seated && game.seatCount() == 0)) {
+            doEndGame();
+            return;
+        }
+        if (hadTurn && !game.isWaitingForSuit()) nextTurn();
+    }
+
+    private void doStartGame() {
+        if (players.isEmpty()) return;
+        if (readyPlayers.size() < players.size()) {
+            broadcast("Waiting for all players to press 'Start'...");
+            return;
+        }
+        broadcast("CLEAR_CHAT");
+        broadcast("Game is starting...");
+        String[] names = playerNames();
+        int[] deck = shuffler.nextDeck();
+        int lastTurn = game.currentPlayer;
+        journal.deal(id, names, deck, deck.length);
+        game.deal(names, deck, deck.length);
+        // keep the opening turn rotating from where the last game stopped
+        if (lastTurn >= 0) game.turn(lastTurn % names.length);
+        for (int seat = 0; seat < names.length; seat++) {
+            Server.ClientHandler player = players.get(seat);
+            dealTo(player, game.hand(seat));
+            player.sendHand();
+        }
+        broadcast("First card: " + Card.name(game.topCard()));
+        broadcast("CURRENT_CARD:" + Card.name(game.topCard()));
+        gameStarted = true;
+        nextTurn();
+    }
+
+    private void doRestartGame() {
+        if (resuming) {
+            broadcast("The game resumes once every player has reconnected.");
+            return;
+        }
+        journal.restart(id);
+        gameStarted = false;
+        readyPlayers.clear();
+        for (Server.ClientHandler player : players) {
+            player.clearHand();
+        }
+        broadcast("Game is restarting...");
+        for (Server.ClientHandler player : players) {
+            if (!readyPlayers.contains(player.getUsername())) readyPlayers.add(player.getUsername());
+        }
+        doStartGame();
+    }
+
+    private void doEndGame() {
+        if (resuming) {
+            abandonResume();
+            return;
+        }
+        if (gameStarted) journal.end(id);
+        gameStarted = false;
+    }
+
+    /** Replaces player's hand with the cards their seat holds. */
+    private static void dealTo(Server.ClientHandler player, Hand hand) {
+        player.clearHand();
+        for (int card = hand.nextCard(0); card >= 0; card = hand.nextCard(card + 1)) {
+            player.addCardToHand(card);
+        }
+    }
+
+    private void nextTurn() {
+        for (int i = 0; i < game.seatCount(); i++) {
+            if (absent.indexOf(players.get(game.advance())) < 0) break;
+        }
+        Server.ClientHandler currentPlayer = players.get(game.currentPlayer);
+        journal.turn(id, game.currentPlayer);
+        currentPlayer.sendMessage("CURRENT_CARD:" + Card.name(game.topCard()));
+        broadcast("It's " + currentPlayer.getUsername() + "'s turn.");
+        currentPlayer.sendMessage("YOUR_TURN");
+        currentPlayer.sendHand();
+    }
+
+    /** The player's seat in the running game, or -1 for someone who joined after the deal. */
+    private int seatOf(Server.ClientHandler player) {
+        int index = players.indexOf(player);
+        return index < game.seatCount() ? index : -1;
+    }
+
+    private boolean rejectMove(Server.ClientHandler player) {
+        if (awaitingResume(player)) return true;
+        if (!gameStarted) {
+            player.sendMessage("No game in progress. Press Start to begin.");
+            return true;
+        }
+        if (seatOf(player) < 0) {
+            player.sendMessage("You joined after the deal; you will be dealt in when the next game starts.");
+            return true;
+        }
+        if (game.isWaitingForSuit()) {
+            player.sendMessage("Please choose a suit before making another move.");
+            return true;
+        }
+        return false;
+    }
+
+    private void doDraw(Server.ClientHandler player) {
+        if (rejectMove(player)) return;
+        int seat = seatOf(player);
+        int drawnCard = game.tryDraw(seat);
+        if (drawnCard == Card.NONE) {
+            player.sendMessage("NO_CARDS_LEFT: The deck is empty.");
+            return;
+        }
+        journal.draw(id, seat, drawnCard);
+        player.addCardToHand(drawnCard);
+        player.sendMessage("DRAWN_CARD:" + Card.name(drawnCard));
+    }
+
+    private void doPlayerMove(Server.ClientHandler player, int card) {
+        if (rejectMove(player)) return;
+        int seat = seatOf(player);
+        switch (game.tryPlay(seat, card)) {
+            case GameState.OK:
+                break;
+            case GameState.NOT_IN_HAND:
+                player.sendMessage("Invalid move: You don't have that card.");
+                return;
+            case GameState.SUIT_PENDING:
+                player.sendMessage("Please choose a suit before making another move.");
+                return;
+            default:
+                player.sendMessage("Invalid move: Card does not match the current suit or rank.");
+                return;
+        }
+        journal.play(id, seat, card);
+        player.removeCardFromHand(card);
+        if (game.isWaitingForSuit()) {
+            player.sendMessage("CHOOSE_SUIT");
+            return;
+        }
+        broadcast(player.getUsername() + " played: " + Card.name(card));
+        broadcast("CURRENT_CARD:" + Card.name(card));
+        if (game.hasWon(seat)) {
+            declareWinner(player, seat);
+            return;
+        }
+        nextTurn();
+    }
+
+    private void doSuitChoice(Server.ClientHandler player, int suit) {
+        int seat = gameStarted && !resuming ? seatOf(player) : -1;
+        int result = seat < 0 ? GameState.NOT_CHOOSING : game.tryChooseSuit(seat, suit);
+        if (result == GameState.NOT_CHOOSING) {
+            player.sendMessage("Not expecting a suit selection from you.");
+            return;
+        }
+        if (result == GameState.INVALID_SUIT) {
+            player.sendMessage("Invalid suit. Choose Hearts, Diamonds, Clubs or Spades.");
+            return;
+        }
+        journal.suit(id, seat, suit);
+        broadcast(player.getUsername() + " chose suit: " + Card.suitName(suit));
+        broadcast("CURRENT_CARD:" + Card.name(game.topCard()));
+        if (game.hasWon(seat)) {
+            declareWinner(player, seat);
+        } else {
+            nextTurn();
+        }
+    }
+
+    private void declareWinner(Server.ClientHandler winner, int seat) {
+        int points = game.pointsOnTable();
+        journal.win(id, seat, points);
+        int total = Server.userScoresAdd(winner.getUsername(), points);
+        broadcast(winner.getUsername() + " wins the game!");
+        broadcast(winner.getUsername() + " scores " + points + " points (" + total + " total).");
+        broadcast(Server.leaderboardMessage());
+        doEndGame();
+    }
+
+    private String[] playerNames() {
+        String[] names = new String[players.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = players.get(i).getUsername();
+        }
+        return names;
+    }
+}
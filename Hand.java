@@ -0,0 +1,100 @@
+/**
+ * Set of card ids backed by a bit mask, one long per 64 ids. A single deck
+ * fits in one word; up to MAX_DECKS decks are supported, where card id
+ * deck * 52 + c is a copy of Card c. Membership, add and remove are O(1) and
+ * playable-card queries are a few ANDs against precomputed suit/rank masks.
+ */
+public class Hand {
+    static final int MAX_DECKS = 4;
+    static final int MAX_CARDS = MAX_DECKS * Card.DECK_SIZE;
+    private static final int MAX_WORDS = (MAX_CARDS + 63) >>> 6;
+    private static final long[][] SUIT_MASKS = new long[Card.SUITS][MAX_WORDS];
+    private static final long[][] RANK_MASKS = new long[Card.RANKS][MAX_WORDS];
+
+    static {
+        for (int id = 0; id < MAX_CARDS; id++) {
+            int card = id % Card.DECK_SIZE;
+            SUIT_MASKS[Card.suit(card)][id >>> 6] |= 1L << id;
+            RANK_MASKS[Card.rank(card)][id >>> 6] |= 1L << id;
+        }
+    }
+
+    private final long[] words;
+
+    public Hand() {
+        this(1);
+    }
+
+    public Hand(int decks) {
+        if (decks < 1 || decks > MAX_DECKS) throw new IllegalArgumentException("Decks: " + decks);
+        words = new long[(decks * Card.DECK_SIZE + 63) >>> 6];
+    }
+
+    public boolean add(int card) {
+        int w = card >>> 6;
+        long bit = 1L << card;
+        boolean absent = (words[w] & bit) == 0;
+        words[w] |= bit;
+        return absent;
+    }
+
+    public boolean remove(int card) {
+        if (card < 0 || (card >>> 6) >= words.length) return false;
+        int w = card >>> 6;
+        long bit = 1L << card;
+        boolean present = (words[w] & bit) != 0;
+        words[w] &= ~bit;
+        return present;
+    }
+
+    public boolean contains(int card) {
+        if (card < 0 || (card >>> 6) >= words.length) return false;
+        return (words[card >>> 6] & (1L << card)) != 0;
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) size += Long.bitCount(word);
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) return false;
+        }
+        return true;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(words, 0L);
+    }
+
+    /** Returns the lowest card id at or above from, or -1 if there is none. */
+    public int nextCard(int from) {
+        if (from < 0) from = 0;
+        int w = from >>> 6;
+        if (w >= words.length) return -1;
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == words.length) return -1;
+            word = words[w];
+        }
+    }
+
+    public boolean hasPlayable(int topCard, int currentSuit) {
+        return firstPlayable(topCard, currentSuit) >= 0;
+    }
+
+    /** Returns the lowest-id card that may be played on topCard, or -1. */
+    public int firstPlayable(int topCard, int currentSuit) {
+        long[] eights = RANK_MASKS[Card.EIGHT];
+        long[] rank = RANK_MASKS[Card.rank(topCard % Card.DECK_SIZE)];
+        long[] suit = currentSuit >= 0 ? SUIT_MASKS[currentSuit] : null;
+        for (int w = 0; w < words.length; w++) {
+            long playable = words[w] & (eights[w] | rank[w] | (suit != null ? suit[w] : 0L));
+            if (playable != 0) return (w << 6) + Long.numberOfTrailingZeros(playable);
+        }
+        return -1;
+    }
+}
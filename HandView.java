@@ -0,0 +1,155 @@
+import javax.swing.JComponent;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.function.IntConsumer;
+
+/**
+ * The player's hand as one component: cards sit in a single row on the
+ * felt, overlapping when the row would not fit, and are blitted from the
+ * CardAtlas over a felt image that is only redrawn when the size changes.
+ * Clicks are hit-tested against the row arithmetic, and a hand update
+ * repaints only from the first card that changed.
+ */
+public class HandView extends JComponent {
+    static final int SPACING = CardAtlas.CARD_WIDTH + 25;
+    private static final int MIN_STRIDE = 16;
+    private static final int MARGIN = 15;
+    private static final int ARC = 40;
+    private static final Color FELT = new Color(0, 100, 0);
+    private static final Color TRIM = new Color(218, 165, 32);
+    private static final Stroke TRIM_STROKE = new BasicStroke(6f);
+    private static final String[] TOOLTIPS = new String[Card.DECK_SIZE];
+
+    static {
+        for (int card = 0; card < Card.DECK_SIZE; card++) TOOLTIPS[card] = "Click to play this card: " + Card.symbol(card);
+    }
+
+    private final int[] cards = new int[Hand.MAX_CARDS];
+    private int count = 0;
+    private int paintedStride = SPACING;
+    private final Rectangle clip = new Rectangle();
+    private BufferedImage felt;
+    private double feltScale;
+    private IntConsumer clickListener = card -> { };
+
+    public HandView() {
+        setOpaque(false);
+        setToolTipText("");
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int i = cardAt(e.getX(), e.getY());
+                if (i >= 0) clickListener.accept(cards[i]);
+            }
+        });
+    }
+
+    /** Called on the EDT with the id of the card the player clicked. */
+    public void setClickListener(IntConsumer listener) {
+        this.clickListener = listener;
+    }
+
+    /** Copies the hand in card order and repaints what moved. Call on the EDT. */
+    public void setHand(Hand hand) {
+        int oldCount = count;
+        int firstChange = -1;
+        int n = 0;
+        for (int id = hand.nextCard(0); id >= 0; id = hand.nextCard(id + 1)) {
+            if (firstChange < 0 && (n >= oldCount || cards[n] != id)) firstChange = n;
+            cards[n++] = id;
+        }
+        count = n;
+        if (firstChange < 0) {
+            if (n == oldCount) return;
+            firstChange = n;
+        }
+        if (n != oldCount) revalidate();
+        int stride = stride(n, getWidth());
+        if (stride != paintedStride) {
+            repaint();
+            return;
+        }
+        int x = MARGIN + firstChange * stride;
+        int end = MARGIN + (Math.max(n, oldCount) - 1) * stride + CardAtlas.CARD_WIDTH;
+        repaint(x, MARGIN, end - x, CardAtlas.CARD_HEIGHT);
+    }
+
+    public int cardCount() {
+        return count;
+    }
+
+    /** Index of the topmost card under (x, y), or -1. */
+    int cardAt(int x, int y) {
+        if (count == 0 || y < MARGIN || y >= MARGIN + CardAtlas.CARD_HEIGHT || x < MARGIN) return -1;
+        int stride = stride(count, getWidth());
+        int i = Math.min((x - MARGIN) / stride, count - 1);
+        return x < MARGIN + i * stride + CardAtlas.CARD_WIDTH ? i : -1;
+    }
+
+    private static int stride(int n, int width) {
+        if (n < 2) return SPACING;
+        int fit = (width - 2 * MARGIN - CardAtlas.CARD_WIDTH) / (n - 1);
+        return Math.max(MIN_STRIDE, Math.min(SPACING, fit));
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int i = cardAt(e.getX(), e.getY());
+        return i < 0 ? null : TOOLTIPS[cards[i] % Card.DECK_SIZE];
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) return super.getPreferredSize();
+        int row = count == 0 ? 0 : (count - 1) * SPACING + CardAtlas.CARD_WIDTH;
+        return new Dimension(2 * MARGIN + Math.max(row, 5 * SPACING), 2 * MARGIN + CardAtlas.CARD_HEIGHT);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        int width = getWidth();
+        int height = getHeight();
+        g2.getClipBounds(clip);
+        if (clip.isEmpty()) clip.setBounds(0, 0, width, height);
+        if (width <= 0 || height <= 0) return;
+        g2.drawImage(felt(g2.getTransform().getScaleX(), width, height), 0, 0, width, height, null);
+        if (count == 0) return;
+        int stride = stride(count, width);
+        paintedStride = stride;
+        int first = Math.max(0, Math.floorDiv(clip.x - MARGIN - CardAtlas.CARD_WIDTH, stride) + 1);
+        int last = Math.min(count - 1, Math.floorDiv(clip.x + clip.width - MARGIN - 1, stride));
+        CardAtlas atlas = CardAtlas.forGraphics(g2);
+        int visible = Math.min(CardAtlas.CARD_WIDTH, stride + CardAtlas.ARC / 2 + 1);
+        for (int i = first; i <= last; i++) {
+            atlas.draw(g2, cards[i], MARGIN + i * stride, MARGIN, i == count - 1 ? CardAtlas.CARD_WIDTH : visible);
+        }
+    }
+
+    private BufferedImage felt(double scale, int width, int height) {
+        int w = (int) Math.ceil(width * scale);
+        int h = (int) Math.ceil(height * scale);
+        if (felt != null && felt.getWidth() == w && felt.getHeight() == h && feltScale == scale) return felt;
+        felt = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        feltScale = scale;
+        Graphics2D g = felt.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.scale(w / (double) width, h / (double) height);
+        g.setColor(FELT);
+        g.fillRoundRect(0, 0, width, height, ARC, ARC);
+        g.setColor(TRIM);
+        g.setStroke(TRIM_STROKE);
+        g.drawRoundRect(3, 3, width - 6, height - 6, ARC, ARC);
+        g.dispose();
+        return felt;
+    }
+}
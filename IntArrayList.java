@@ -0,0 +1,163 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Growable list of primitive ints, for card ids and counters that would
+ * otherwise be boxed. Also usable as a stack through push/pop/peek.
+ */
+public class IntArrayList {
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private int[] arr;
+    private int size;
+
+    public IntArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntArrayList(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("Capacity: " + initialCapacity);
+        arr = new int[initialCapacity];
+    }
+
+    public void add(int value) {
+        if (size == arr.length) {
+            grow(size + 1);
+        }
+        arr[size++] = value;
+    }
+
+    public void add(int index, int value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == arr.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(arr, index, arr, index + 1, size - index);
+        arr[index] = value;
+        size++;
+    }
+
+    public void addAll(int[] values, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(values, offset, arr, size, length);
+        size += length;
+    }
+
+    public void addAll(IntArrayList values) {
+        addAll(values.arr, 0, values.size);
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > arr.length) {
+            grow(minCapacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (arr.length > size) {
+            arr = Arrays.copyOf(arr, size);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) throw new OutOfMemoryError("Required capacity: " + minCapacity);
+        int newCapacity = arr.length < MAX_CAPACITY / 2 ? Math.max(arr.length * 2, DEFAULT_CAPACITY) : MAX_CAPACITY;
+        arr = Arrays.copyOf(arr, Math.max(newCapacity, minCapacity));
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return arr[index];
+    }
+
+    public int set(int index, int value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int old = arr[index];
+        arr[index] = value;
+        return old;
+    }
+
+    /** Adds delta to the element at index and returns the new value. */
+    public int increment(int index, int delta) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return arr[index] += delta;
+    }
+
+    public void push(int value) {
+        add(value);
+    }
+
+    public int pop() {
+        if (size == 0) throw new NoSuchElementException();
+        return arr[--size];
+    }
+
+    public int peek() {
+        if (size == 0) throw new NoSuchElementException();
+        return arr[size - 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (arr[i] == value) return i;
+        }
+        return -1;
+    }
+
+    public int removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int old = arr[index];
+        System.arraycopy(arr, index + 1, arr, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    public boolean removeValue(int value) {
+        int index = indexOf(value);
+        if (index < 0) return false;
+        removeAt(index);
+        return true;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(arr, size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            sb.append(arr[i]);
+            if (i < size - 1) sb.append(", ");
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,50 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Re-runs a game journal offline at full speed:
+ *
+ *     java JournalReplay games.journal [repeats] [--trace]
+ *
+ * Every record is re-applied with the rule checks in GameState, so any move
+ * the server accepted but should have rejected is reported with its record
+ * number. --trace prints each event of the first pass; repeats > 1 replays
+ * the same bytes again to measure engine throughput.
+ */
+public class JournalReplay {
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java JournalReplay <journal> [repeats] [--trace]");
+            return;
+        }
+        byte[] data = Files.readAllBytes(Paths.get(args[0]));
+        int repeats = 1;
+        boolean trace = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--trace")) trace = true; else repeats = Integer.parseInt(args[i]);
+        }
+
+        int[] problems = new int[1];
+        Map<Integer, GameState> games = new HashMap<>();
+        long records = GameJournal.apply(ByteBuffer.wrap(data), games, message -> {
+            problems[0]++;
+            System.out.println("PROBLEM " + message);
+        }, trace ? System.out::println : null);
+        System.out.println(records + " records, " + problems[0] + " problems, " + games.size() + " games still in progress at the end.");
+
+        if (repeats > 1) {
+            long start = System.nanoTime();
+            long total = 0;
+            for (int i = 0; i < repeats; i++) {
+                total += GameJournal.apply(ByteBuffer.wrap(data), new HashMap<>(), message -> { }, null);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Replayed %d records in %.3f s: %.0f records/s, %.1f MB/s%n",
+                    total, seconds, total / seconds, (double) data.length * repeats / seconds / (1 << 20));
+        }
+    }
+}
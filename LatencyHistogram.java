@@ -0,0 +1,76 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram. Recording is a short scan over the bucket
+ * bounds and one LongAdder increment, so hot paths on many threads can
+ * record without contending. Buckets follow the 1-2.5-5 steps from 10 us to
+ * 1 s, plus an overflow bucket.
+ */
+public class LatencyHistogram {
+    static final long[] BOUNDS_NANOS = {
+            10_000L, 25_000L, 50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        int i = 0;
+        while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i]) i++;
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) count += bucket.sum();
+        return count;
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    /** Upper bound in nanoseconds of the bucket holding quantile q, or -1 past the last bound or when empty. */
+    public long quantileBoundNanos(double q) {
+        long[] counts = counts();
+        long total = 0;
+        for (long c : counts) total += c;
+        if (total == 0) return -1;
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return BOUNDS_NANOS[i];
+        }
+        return -1;
+    }
+
+    /** Writes the histogram in the Prometheus text format with bounds in seconds. */
+    public void writeTo(StringBuilder sb, String name, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" histogram\n");
+        long[] counts = counts();
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+            cumulative += counts[i];
+            sb.append(name).append("_bucket{le=\"").append(BOUNDS_NANOS[i] / 1e9).append("\"} ").append(cumulative).append('\n');
+        }
+        cumulative += counts[BOUNDS_NANOS.length];
+        sb.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+        sb.append(name).append("_sum ").append(sumNanos.sum() / 1e9).append('\n');
+        sb.append(name).append("_count ").append(cumulative).append('\n');
+    }
+
+    private long[] counts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) counts[i] = buckets[i].sum();
+        return counts;
+    }
+}
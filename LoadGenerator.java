@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Drives BotClients against a server and reports throughput, move latency
+ * (a bot's command until the server's answer to it) and turn latency (the
+ * move that ends a bot's turn until the next turn is announced). Usage:
+ * java LoadGenerator [bots] [games] [seconds] [--mode=threads|virtual|nio] [--connect=host:port]
+ *
+ * Bots are split evenly across the games (2 to 6 per game). Without
+ * --connect an in-process server is started on localhost in the given mode.
+ * Each game's bots are seated and started before the next game's bots
+ * connect, so every group lands on its own table.
+ */
+public class LoadGenerator {
+    public static void main(String[] args) throws Exception {
+        int bots = 60;
+        int games = 20;
+        int seconds = 10;
+        String mode = "threads";
+        String host = null;
+        int port = 4600;
+        int positional = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--mode=")) {
+                mode = arg.substring(7);
+            } else if (arg.startsWith("--connect=")) {
+                String target = arg.substring(10);
+                int colon = target.lastIndexOf(':');
+                host = target.substring(0, colon);
+                port = Integer.parseInt(target.substring(colon + 1));
+            } else if (positional == 0) {
+                bots = Integer.parseInt(arg);
+                positional++;
+            } else if (positional == 1) {
+                games = Integer.parseInt(arg);
+                positional++;
+            } else {
+                seconds = Integer.parseInt(arg);
+            }
+        }
+        int perGame = (bots + games - 1) / games;
+        if (perGame < 2 || perGame > GameTable.MAX_PLAYERS) {
+            System.out.println("Need 2 to " + GameTable.MAX_PLAYERS + " bots per game; got " + bots + " bots for " + games + " games.");
+            return;
+        }
+
+        if (host == null) {
+            if (mode.equals("virtual") && !Server.virtualThreadsAvailable()) {
+                System.out.println("Virtual threads need Java 21+ (running " + Runtime.version() + "); the server will use platform threads.");
+            }
+            host = "localhost";
+            startServer(port, mode);
+        }
+
+        AtomicLong moves = new AtomicLong();
+        AtomicLong finished = new AtomicLong();
+        BotClient[] clients = new BotClient[bots];
+        Thread[] threads = new Thread[bots];
+        int connected = 0;
+        for (int game = 0; game < games && connected < bots; game++) {
+            int first = connected;
+            for (int seat = 0; seat < perGame && connected < bots; seat++) {
+                clients[connected] = new BotClient(new Socket(host, port), "bot-" + game + "-" + seat, seat == 0, moves, finished);
+                threads[connected] = new Thread(clients[connected], "bot-" + game + "-" + seat);
+                threads[connected].setDaemon(true);
+                threads[connected].start();
+                connected++;
+            }
+            for (int i = first; i < connected; i++) clients[i].ready();
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (!clients[first].isStarted() && System.nanoTime() < deadline) Thread.sleep(1);
+            if (!clients[first].isStarted()) System.out.println("Game " + game + " did not start within 5 s.");
+        }
+
+        long startMoves = moves.get();
+        long startFinished = finished.get();
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        long elapsed = System.nanoTime() - start;
+        long runMoves = moves.get() - startMoves;
+        long runFinished = finished.get() - startFinished;
+        for (int i = 0; i < connected; i++) clients[i].close();
+        for (int i = 0; i < connected; i++) threads[i].join(2000);
+
+        double secs = elapsed / 1e9;
+        System.out.printf("%d bots in %d games over %.1f s (%s)%n", connected, games, secs, mode);
+        System.out.printf("moves/sec %.0f, games finished %d%n", runMoves / secs, runFinished);
+        printLatencies("move", merged(clients, connected, BotClient::latencies));
+        printLatencies("turn", merged(clients, connected, BotClient::turnLatencies));
+        System.exit(0);
+    }
+
+    /** Every bot's samples in one sorted array. */
+    private static long[] merged(BotClient[] clients, int count, Function<BotClient, long[]> samples) {
+        long[][] perBot = new long[count][];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            perBot[i] = samples.apply(clients[i]);
+            total += perBot[i].length;
+        }
+        long[] merged = new long[total];
+        int pos = 0;
+        for (long[] bot : perBot) {
+            System.arraycopy(bot, 0, merged, pos, bot.length);
+            pos += bot.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    private static void printLatencies(String label, long[] sorted) {
+        System.out.printf("%s latency ms: p50 %.3f  p99 %.3f  p999 %.3f  max %.3f  (%d samples)%n", label,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0, sorted.length);
+    }
+
+    private static void startServer(int port, String mode) throws InterruptedException, IOException {
+        Thread server = new Thread(() -> Server.serve(port, mode), "server-" + mode);
+        server.setDaemon(true);
+        server.start();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            try {
+                new Socket("localhost", port).close();
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IOException("Server did not start on port " + port);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,153 @@
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Plays the client's music through one SourceDataLine. A "music" thread
+ * first renders any track missing from the disk cache, then streams the
+ * requested track from its file in small chunks, so the GUI never waits on
+ * synthesis and memory does not grow with track length. Requests are queued
+ * from any thread and picked up between chunks; a request made before the
+ * tracks are ready plays once they are.
+ */
+public class MusicPlayer {
+    private static final int CHUNK_BYTES = 4096;
+    private static final int LINE_BUFFER_BYTES = MusicSynth.SAMPLE_RATE / 5 * 2;
+
+    private static final class Request {
+        final MusicSynth.Track track;
+        final boolean loop;
+        final float gain;
+
+        Request(MusicSynth.Track track, boolean loop, float gain) {
+            this.track = track;
+            this.loop = loop;
+            this.gain = gain;
+        }
+    }
+
+    private static final Request STOP = new Request(null, false, 0f);
+    private static final Request CLOSE = new Request(null, false, 0f);
+
+    private final Path cacheDir;
+    private final LinkedBlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+    private Thread thread;
+
+    public MusicPlayer(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public static Path defaultCacheDir() {
+        return Paths.get(System.getProperty("user.home"), ".crazyeights", "audio");
+    }
+
+    public void start() {
+        thread = new Thread(this::run, "music");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Plays track over and over at gain, a fraction of the line's maximum gain. */
+    public void loop(MusicSynth.Track track, float gain) {
+        requests.add(new Request(track, true, gain));
+    }
+
+    public void play(MusicSynth.Track track, float gain) {
+        requests.add(new Request(track, false, gain));
+    }
+
+    public void stop() {
+        requests.add(STOP);
+    }
+
+    public void close() {
+        requests.add(CLOSE);
+    }
+
+    private void run() {
+        Map<MusicSynth.Track, Path> files = new HashMap<>();
+        try {
+            for (MusicSynth.Track track : MusicSynth.TRACKS) files.put(track, MusicSynth.cached(track, cacheDir));
+        } catch (IOException e) {
+            System.err.println("Music disabled: cannot cache audio in " + cacheDir + ": " + e.getMessage());
+            return;
+        }
+        SourceDataLine line;
+        try {
+            line = AudioSystem.getSourceDataLine(MusicSynth.FORMAT);
+            line.open(MusicSynth.FORMAT, LINE_BUFFER_BYTES);
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            return;
+        }
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+        Request current = null;
+        FileChannel channel = null;
+        try {
+            while (true) {
+                Request next = current == null ? requests.take() : requests.poll();
+                if (next != null) {
+                    line.stop();
+                    line.flush();
+                    channel = close(channel);
+                    current = null;
+                    if (next == CLOSE) break;
+                    if (next == STOP) continue;
+                    channel = FileChannel.open(files.get(next.track));
+                    setGain(line, next.gain);
+                    line.start();
+                    current = next;
+                    continue;
+                }
+                chunk.clear();
+                while (chunk.hasRemaining() && channel.read(chunk) > 0) {
+                    // fill the chunk so every write holds whole frames
+                }
+                if (chunk.position() == 0) {
+                    if (current.loop) {
+                        channel.position(0);
+                    } else {
+                        line.drain();
+                        line.stop();
+                        channel = close(channel);
+                        current = null;
+                    }
+                    continue;
+                }
+                line.write(chunk.array(), 0, chunk.position());
+            }
+        } catch (IOException e) {
+            System.err.println("Music stopped: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(channel);
+            line.close();
+        }
+    }
+
+    private static void setGain(SourceDataLine line, float gain) {
+        if (line.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+            FloatControl control = (FloatControl) line.getControl(FloatControl.Type.MASTER_GAIN);
+            control.setValue(control.getMaximum() * gain);
+        }
+    }
+
+    private static FileChannel close(FileChannel channel) {
+        if (channel == null) return null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // read-only; nothing to lose
+        }
+        return null;
+    }
+}
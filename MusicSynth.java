@@ -0,0 +1,252 @@
+import javax.sound.sampled.AudioFormat;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Renders the client's music as 16-bit mono PCM. Oscillators step a phase
+ * accumulator through one shared sine wavetable with linear interpolation
+ * rather than calling Math.sin per sample, and samples go out through a
+ * fixed chunk buffer, so rendering memory does not grow with track length.
+ *
+ * Rendered tracks are cached on disk as name-key.pcm, where the key is a
+ * CRC of every parameter that shapes the track; changing a melody or an
+ * envelope misses the cache rather than playing stale audio.
+ */
+public final class MusicSynth {
+    static final int SAMPLE_RATE = 44100;
+    static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+    private static final int RENDER_VERSION = 1;
+    private static final int TABLE_SIZE = 4096;
+    private static final float[] SINE = new float[TABLE_SIZE + 1];
+    private static final int CHUNK_BYTES = 8192;
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) SINE[i] = (float) Math.sin(2 * Math.PI * i / TABLE_SIZE);
+    }
+
+    private static final int GAMEPLAY_SECONDS = 16;
+    private static final double[] MELODY = {
+        261.63, 293.66, 329.63, 349.23, 392.00, 349.23, 329.63, 293.66,
+        261.63, 329.63, 392.00, 440.00, 392.00, 349.23, 329.63, 293.66,
+        261.63, 293.66, 329.63, 349.23, 392.00, 349.23, 329.63, 293.66,
+        261.63, 0, 261.63, 0, 261.63, 0, 261.63, 0
+    };
+    private static final double MELODY_AMPLITUDE = 0.18;
+    private static final double MELODY_OCTAVE = 0.10;
+    private static final double ATTACK = 0.08, DECAY = 0.12, SUSTAIN = 0.7, RELEASE = 0.18;
+
+    private static final int END_GAME_SECONDS = 4;
+    private static final double GLISS_FROM = 400, GLISS_TO = 3200, GLISS_SECONDS = 2, GLISS_ATTACK = 0.2, GLISS_AMPLITUDE = 0.35;
+    private static final double[] BELLS = { 1318.5, 1567.98, 1760.00, 2093.00 };
+    private static final double[] BELL_PARTIALS = { 0.5, 0.2, 0.1 };
+    private static final double BELL_SECONDS = 0.5, BELL_DECAY = 3;
+    private static final double[] CHORD = { 523.25, 659.25, 783.99 };
+    private static final double CHORD_AMPLITUDE = 0.25, CHORD_SECONDS = 0.5, CHORD_DECAY = 2;
+
+    interface Renderer {
+        void render(PcmWriter out) throws IOException;
+    }
+
+    public static final class Track {
+        final String name;
+        final String parameters;
+        final Renderer renderer;
+
+        Track(String name, String parameters, Renderer renderer) {
+            this.name = name;
+            this.parameters = parameters;
+            this.renderer = renderer;
+        }
+
+        String fileName() {
+            CRC32 crc = new CRC32();
+            crc.update((RENDER_VERSION + "/" + FORMAT + "/" + parameters).getBytes(StandardCharsets.UTF_8));
+            return name + "-" + String.format("%08x", crc.getValue()) + ".pcm";
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static final Track GAMEPLAY = new Track("gameplay",
+            GAMEPLAY_SECONDS + " " + Arrays.toString(MELODY) + " " + MELODY_AMPLITUDE + " " + MELODY_OCTAVE
+                    + " " + ATTACK + " " + DECAY + " " + SUSTAIN + " " + RELEASE,
+            MusicSynth::renderGameplay);
+
+    public static final Track END_GAME = new Track("end-game",
+            END_GAME_SECONDS + " " + GLISS_FROM + " " + GLISS_TO + " " + GLISS_SECONDS + " " + GLISS_ATTACK + " " + GLISS_AMPLITUDE
+                    + " " + Arrays.toString(BELLS) + " " + Arrays.toString(BELL_PARTIALS) + " " + BELL_SECONDS + " " + BELL_DECAY
+                    + " " + Arrays.toString(CHORD) + " " + CHORD_AMPLITUDE + " " + CHORD_SECONDS + " " + CHORD_DECAY,
+            MusicSynth::renderEndGame);
+
+    static final Track[] TRACKS = { GAMEPLAY, END_GAME };
+
+    private MusicSynth() {
+    }
+
+    /** Sine oscillator reading the shared wavetable. */
+    static final class Oscillator {
+        private double phase;
+        private double step;
+
+        void reset(double hz) {
+            phase = 0;
+            frequency(hz);
+        }
+
+        void frequency(double hz) {
+            step = hz * TABLE_SIZE / SAMPLE_RATE;
+        }
+
+        double next() {
+            int i = (int) phase;
+            double a = SINE[i];
+            double sample = a + (SINE[i + 1] - a) * (phase - i);
+            phase += step;
+            if (phase >= TABLE_SIZE) phase -= TABLE_SIZE;
+            return sample;
+        }
+    }
+
+    /** Writes samples in [-1, 1] as little-endian 16-bit PCM through a fixed chunk. */
+    static final class PcmWriter implements Closeable {
+        private final OutputStream out;
+        private final byte[] chunk = new byte[CHUNK_BYTES];
+        private int length = 0;
+
+        PcmWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(double sample) throws IOException {
+            if (sample > 1) sample = 1;
+            else if (sample < -1) sample = -1;
+            short value = (short) (sample * 32767);
+            chunk[length++] = (byte) value;
+            chunk[length++] = (byte) (value >> 8);
+            if (length == chunk.length) flush();
+        }
+
+        void silence(int frames) throws IOException {
+            for (int i = 0; i < frames; i++) write(0);
+        }
+
+        void flush() throws IOException {
+            out.write(chunk, 0, length);
+            length = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the cached file for track in dir, rendering it first if it is
+     * missing. The render goes to a temporary file that is renamed into place,
+     * so a crash never leaves a truncated track behind, and older renders of
+     * the same track are removed.
+     */
+    static Path cached(Track track, Path dir) throws IOException {
+        Path file = dir.resolve(track.fileName());
+        if (Files.isRegularFile(file) && Files.size(file) > 0) return file;
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, track.name, ".tmp");
+        try (PcmWriter out = new PcmWriter(new BufferedOutputStream(Files.newOutputStream(temp), CHUNK_BYTES))) {
+            track.renderer.render(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(dir, track.name + "-*.pcm")) {
+            for (Path old : stale) {
+                if (!old.equals(file)) Files.deleteIfExists(old);
+            }
+        }
+        return file;
+    }
+
+    private static void renderGameplay(PcmWriter out) throws IOException {
+        int samplesPerNote = (int) (SAMPLE_RATE * ((double) GAMEPLAY_SECONDS / MELODY.length));
+        Oscillator fundamental = new Oscillator();
+        Oscillator octave = new Oscillator();
+        for (double frequency : MELODY) {
+            if (frequency <= 0) {
+                out.silence(samplesPerNote);
+                continue;
+            }
+            fundamental.reset(frequency);
+            octave.reset(frequency * 2);
+            for (int i = 0; i < samplesPerNote; i++) {
+                double pos = (double) i / samplesPerNote;
+                double env;
+                if (pos < ATTACK) env = pos / ATTACK;
+                else if (pos < ATTACK + DECAY) env = 1.0 - (pos - ATTACK) / DECAY * (1 - SUSTAIN);
+                else if (pos < 1.0 - RELEASE) env = SUSTAIN;
+                else env = SUSTAIN * (1.0 - (pos - (1.0 - RELEASE)) / RELEASE);
+                double level = MELODY_AMPLITUDE * env;
+                out.write(level * fundamental.next() + MELODY_OCTAVE * level * octave.next());
+            }
+        }
+    }
+
+    private static void renderEndGame(PcmWriter out) throws IOException {
+        int written = 0;
+        int glissSamples = (int) (SAMPLE_RATE * GLISS_SECONDS);
+        Oscillator gliss = new Oscillator();
+        gliss.reset(GLISS_FROM);
+        for (int i = 0; i < glissSamples; i++) {
+            double env = Math.min(1.0, (double) i / SAMPLE_RATE / GLISS_ATTACK);
+            gliss.frequency(GLISS_FROM + (GLISS_TO - GLISS_FROM) * i / glissSamples);
+            out.write(GLISS_AMPLITUDE * env * gliss.next());
+        }
+        written += glissSamples;
+
+        int bellSamples = (int) (SAMPLE_RATE * BELL_SECONDS);
+        double bellFalloff = Math.exp(-BELL_DECAY / SAMPLE_RATE);
+        Oscillator[] partials = new Oscillator[BELL_PARTIALS.length];
+        for (int p = 0; p < partials.length; p++) partials[p] = new Oscillator();
+        for (double frequency : BELLS) {
+            for (int p = 0; p < partials.length; p++) partials[p].reset(frequency * (p + 1));
+            double env = 1;
+            for (int i = 0; i < bellSamples; i++) {
+                double wave = 0;
+                for (int p = 0; p < partials.length; p++) wave += BELL_PARTIALS[p] * partials[p].next();
+                out.write(env * wave);
+                env *= bellFalloff;
+            }
+            written += bellSamples;
+        }
+
+        int chordSamples = (int) (SAMPLE_RATE * CHORD_SECONDS);
+        double chordFalloff = Math.exp(-CHORD_DECAY / SAMPLE_RATE);
+        Oscillator[] voices = new Oscillator[CHORD.length];
+        for (int v = 0; v < voices.length; v++) {
+            voices[v] = new Oscillator();
+            voices[v].reset(CHORD[v]);
+        }
+        double env = 1;
+        for (int i = 0; i < chordSamples; i++) {
+            double wave = 0;
+            for (Oscillator voice : voices) wave += voice.next();
+            out.write(CHORD_AMPLITUDE * env * wave);
+            env *= chordFalloff;
+        }
+        written += chordSamples;
+        out.silence(Math.max(0, SAMPLE_RATE * END_GAME_SECONDS - written));
+    }
+}
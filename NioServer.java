@@ -0,0 +1,332 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Non-blocking transport for the newline-delimited protocol. One acceptor
+ * thread hands new channels round-robin to a fixed set of I/O workers, each
+ * owning a selector. Complete lines are passed to the connection's handler on
+ * the worker thread.
+ */
+public class NioServer implements Runnable {
+    static final int MAX_LINE_LENGTH = BinaryProtocol.HEADER_LENGTH + BinaryProtocol.MAX_PAYLOAD;
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final int port;
+    private final Worker[] workers;
+    private final Function<Connection, Server.ClientHandler> handlerFactory;
+    private volatile boolean running = true;
+    private int nextWorker = 0;
+
+    public NioServer(int port, int ioThreads, Function<Connection, Server.ClientHandler> handlerFactory) {
+        this.port = port;
+        this.handlerFactory = handlerFactory;
+        this.workers = new Worker[Math.max(1, ioThreads)];
+    }
+
+    @Override
+    public void run() {
+        try (Selector acceptSelector = Selector.open();
+             ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port), 1024);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Worker(Selector.open());
+                Thread t = new Thread(workers[i], "nio-io-" + i);
+                t.setDaemon(true);
+                t.start();
+            }
+            while (running) {
+                acceptSelector.select();
+                Iterator<SelectionKey> keys = acceptSelector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid() || !key.isAcceptable()) continue;
+                    SocketChannel channel;
+                    while ((channel = serverChannel.accept()) != null) {
+                        channel.configureBlocking(false);
+                        channel.socket().setTcpNoDelay(true);
+                        Worker worker = workers[nextWorker];
+                        nextWorker = (nextWorker + 1) % workers.length;
+                        worker.register(channel);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("NIO server failed on port " + port, e);
+        } finally {
+            running = false;
+            for (Worker worker : workers) {
+                if (worker != null) worker.shutdown();
+            }
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    private class Worker implements Runnable {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private volatile Thread thread;
+
+        Worker(Selector selector) {
+            this.selector = selector;
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    Connection connection = new Connection(this, channel);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connection.handler = handlerFactory.apply(connection);
+                } catch (ClosedChannelException e) {
+                    // peer went away before registration
+                }
+            });
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            execute(() -> {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection) {
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // already closing
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            while (selector.isOpen()) {
+                try {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            Server.events.log("NIO worker task failed", e);
+                        }
+                    }
+                    if (!selector.isOpen()) break;
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (!key.isValid()) {
+                                connection.close();
+                                continue;
+                            }
+                            if (key.isWritable()) connection.flush();
+                            if (key.isValid() && key.isReadable()) connection.read(readBuffer);
+                        } catch (RuntimeException e) {
+                            abandon(connection, e);
+                        }
+                    }
+                } catch (IOException e) {
+                    if (selector.isOpen()) continue;
+                }
+            }
+        }
+    }
+
+    /** Closes a connection whose handler threw, so the worker keeps serving every other key. */
+    private static void abandon(Connection connection, RuntimeException error) {
+        Server.events.log("Closing " + connection.getRemoteAddress() + " after an error", error);
+        try {
+            connection.closeNow();
+        } catch (RuntimeException e) {
+            Server.events.log("Error while closing " + connection.getRemoteAddress(), e);
+        }
+    }
+
+    public static class Connection {
+        private final Worker worker;
+        private final SocketChannel channel;
+        private final ConcurrentLinkedQueue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        private final AtomicInteger depth = new AtomicInteger();
+        private final ByteBuffer[] batch = new ByteBuffer[64];
+        private SelectionKey key;
+        private Server.ClientHandler handler;
+        private byte[] lineBuffer = new byte[256];
+        private int lineLength = 0;
+        private boolean binary = false;
+        private volatile boolean closed = false;
+        private final AtomicBoolean closing = new AtomicBoolean(false);
+
+        Connection(Worker worker, SocketChannel channel) {
+            this.worker = worker;
+            this.channel = channel;
+        }
+
+        public int depth() {
+            return depth.get();
+        }
+
+        public String getRemoteAddress() {
+            try {
+                return String.valueOf(channel.getRemoteAddress());
+            } catch (IOException e) {
+                return "unknown";
+            }
+        }
+
+        public void send(String message) {
+            send((message + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        public void send(byte[] bytes) {
+            if (closed) return;
+            if (depth.incrementAndGet() > OutboundQueue.HIGH_WATER_MARK) {
+                if (closing.compareAndSet(false, true)) worker.execute(this::closeNow);
+                return;
+            }
+            outbound.add(ByteBuffer.wrap(bytes));
+            if (flushScheduled.compareAndSet(false, true)) {
+                worker.execute(this::flush);
+            }
+        }
+
+        /** Switches inbound framing to BinaryProtocol frames; must be called on the I/O thread. */
+        public void setBinary(boolean binary) {
+            this.binary = binary;
+        }
+
+        public void close() {
+            if (Thread.currentThread() == worker.thread) {
+                closeNow();
+            } else if (closing.compareAndSet(false, true)) {
+                worker.execute(this::closeNow);
+            }
+        }
+
+        private void closeNow() {
+            if (closed) return;
+            closed = true;
+            if (key != null) key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+            outbound.clear();
+            if (handler != null) handler.onDisconnect();
+        }
+
+        private void read(ByteBuffer buffer) {
+            int n;
+            try {
+                buffer.clear();
+                n = channel.read(buffer);
+            } catch (IOException e) {
+                closeNow();
+                return;
+            }
+            if (n < 0) {
+                closeNow();
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining() && !closed) {
+                byte b = buffer.get();
+                if (binary) {
+                    if (!append(b)) return;
+                    if (lineLength >= BinaryProtocol.HEADER_LENGTH) {
+                        int length = ((lineBuffer[1] & 0xFF) << 8) | (lineBuffer[2] & 0xFF);
+                        if (lineLength == BinaryProtocol.HEADER_LENGTH + length) {
+                            byte[] payload = Arrays.copyOfRange(lineBuffer, BinaryProtocol.HEADER_LENGTH, lineLength);
+                            lineLength = 0;
+                            handler.onFrame(lineBuffer[0] & 0xFF, payload);
+                        }
+                    }
+                } else if (b == '\n') {
+                    int end = lineLength;
+                    if (end > 0 && lineBuffer[end - 1] == '\r') end--;
+                    String line = new String(lineBuffer, 0, end, StandardCharsets.UTF_8);
+                    lineLength = 0;
+                    handler.onLine(line);
+                } else if (!append(b)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean append(byte b) {
+            if (lineLength == lineBuffer.length) {
+                if (lineBuffer.length >= MAX_LINE_LENGTH) {
+                    closeNow();
+                    return false;
+                }
+                byte[] grown = new byte[Math.min(MAX_LINE_LENGTH, lineBuffer.length * 2)];
+                System.arraycopy(lineBuffer, 0, grown, 0, lineLength);
+                lineBuffer = grown;
+            }
+            lineBuffer[lineLength++] = b;
+            return true;
+        }
+
+        private void flush() {
+            if (closed) return;
+            try {
+                while (true) {
+                    int count = 0;
+                    for (ByteBuffer buffer : outbound) {
+                        batch[count++] = buffer;
+                        if (count == batch.length) break;
+                    }
+                    if (count == 0) break;
+                    channel.write(batch, 0, count);
+                    int written = 0;
+                    while (written < count && !batch[written].hasRemaining()) {
+                        outbound.poll();
+                        written++;
+                    }
+                    depth.addAndGet(-written);
+                    Arrays.fill(batch, 0, count, null);
+                    if (written < count) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+                key.interestOps(SelectionKey.OP_READ);
+                flushScheduled.set(false);
+                if (!outbound.isEmpty() && flushScheduled.compareAndSet(false, true)) {
+                    flush();
+                }
+            } catch (IOException e) {
+                closeNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded outbound message queue for one blocking connection. Messages are
+ * drained on a shared writer executor, written into a buffered stream and
+ * flushed once per batch. A client that falls more than HIGH_WATER_MARK
+ * messages behind is treated as stalled and handed to onStalled; a write
+ * that fails, usually because the peer went away, goes to onFailed instead.
+ */
+public class OutboundQueue implements Runnable {
+    static final int HIGH_WATER_MARK = 1024;
+
+    private final ConcurrentLinkedQueue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final OutputStream out;
+    private final Executor executor;
+    private final Runnable onStalled;
+    private final Runnable onFailed;
+    private volatile boolean closed = false;
+
+    public OutboundQueue(OutputStream out, Executor executor, Runnable onStalled, Runnable onFailed) {
+        this.out = out;
+        this.executor = executor;
+        this.onStalled = onStalled;
+        this.onFailed = onFailed;
+    }
+
+    public boolean offer(String message) {
+        return offer((message + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean offer(byte[] message) {
+        if (closed) return false;
+        if (depth.incrementAndGet() > HIGH_WATER_MARK) {
+            close();
+            onStalled.run();
+            return false;
+        }
+        pending.add(message);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this);
+        }
+        return true;
+    }
+
+    public int depth() {
+        return depth.get();
+    }
+
+    public void close() {
+        closed = true;
+        pending.clear();
+    }
+
+    @Override
+    public void run() {
+        try {
+            do {
+                byte[] message;
+                while ((message = pending.poll()) != null) {
+                    depth.decrementAndGet();
+                    out.write(message);
+                }
+                out.flush();
+                scheduled.set(false);
+            } while (!closed && !pending.isEmpty() && scheduled.compareAndSet(false, true));
+        } catch (IOException e) {
+            if (!closed) {
+                close();
+                onFailed.run();
+            }
+        }
+    }
+}
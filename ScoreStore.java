@@ -0,0 +1,246 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Persists a ScoreTable as an append-only log of absolute scores. Every
+ * update is queued from the table's own lock and written by one background
+ * thread that batches whatever has queued up into a single write and a
+ * single fsync, so callers never wait on the disk. When the log holds more
+ * than twice as many records as there are users it is rewritten as a fresh
+ * snapshot and swapped in with an atomic rename.
+ *
+ * File layout: MAGIC, VERSION, then records of
+ * [name length u16][name UTF-8][score i32][crc32 of name and score i32].
+ * Recovery maps the file and replays records until the first torn or
+ * corrupt one, then truncates the file there.
+ */
+public class ScoreStore {
+    private static final int MAGIC = 0x43385343; // "C8SC"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+    private static final int MIN_RECORD_LENGTH = 2 + 1 + 8;
+    private static final int MIN_COMPACT_RECORDS = 4096;
+    private static final int MAX_BATCH = 4096;
+
+    private static final class Update {
+        final String username;
+        final int score;
+
+        Update(String username, int score) {
+            this.username = username;
+            this.score = score;
+        }
+    }
+
+    private static final Update CLOSE = new Update(null, 0);
+
+    private final Path path;
+    private final ScoreTable table;
+    private final Consumer<String> log;
+    private final LinkedBlockingQueue<Update> pending = new LinkedBlockingQueue<>();
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private long records;
+    private long writes;
+    private long lastCompactionWrites;
+    private Thread writer;
+
+    private ScoreStore(Path path, ScoreTable table, Consumer<String> log) {
+        this.path = path;
+        this.table = table;
+        this.log = log;
+    }
+
+    /**
+     * Loads every score in the file into table, then starts logging the
+     * table's updates back to it.
+     */
+    public static ScoreStore open(Path path, ScoreTable table, Consumer<String> log) throws IOException {
+        ScoreStore store = new ScoreStore(path, table, log);
+        store.recover();
+        table.setListener(store::enqueue);
+        store.writer = new Thread(store::writeLoop, "score-writer");
+        store.writer.setDaemon(true);
+        store.writer.start();
+        return store;
+    }
+
+    public long recordCount() {
+        return records;
+    }
+
+    /** Write calls the last compaction made; a handful per 64 KiB of snapshot, not one per record. */
+    long lastCompactionWrites() {
+        return lastCompactionWrites;
+    }
+
+    /** Flushes everything queued so far and stops the writer thread. */
+    public void close() {
+        table.setListener(null);
+        pending.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(String username, int score) {
+        pending.add(new Update(username, score));
+    }
+
+    private void recover() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = channel.size();
+        if (length > Integer.MAX_VALUE) throw new IOException("Score file too large to map: " + length);
+        if (length < HEADER_LENGTH) {
+            channel.truncate(0);
+            writeHeader(channel);
+            channel.force(true);
+            return;
+        }
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        if (map.getInt() != MAGIC || map.getInt() != VERSION) throw new IOException("Not a score file: " + path);
+        table.ensureCapacity((int) Math.min(length / MIN_RECORD_LENGTH, 1 << 24));
+        byte[] name = new byte[256];
+        long good = HEADER_LENGTH;
+        while (map.remaining() >= 2) {
+            int nameLength = map.getShort() & 0xFFFF;
+            if (map.remaining() < nameLength + 8) break;
+            if (name.length < nameLength) name = new byte[nameLength];
+            map.get(name, 0, nameLength);
+            int score = map.getInt();
+            int checksum = map.getInt();
+            if (checksum != checksum(name, nameLength, score)) break;
+            table.restore(new String(name, 0, nameLength, StandardCharsets.UTF_8), score);
+            records++;
+            good = map.position();
+        }
+        table.restoreComplete();
+        if (good < length) {
+            log.accept("Score file " + path + ": discarded " + (length - good) + " bytes of torn or corrupt records.");
+            channel.truncate(good);
+        }
+        channel.position(good);
+    }
+
+    private void writeLoop() {
+        ArrayDeque<Update> batch = new ArrayDeque<>();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(pending.take());
+                pending.drainTo(batch, MAX_BATCH);
+            } catch (InterruptedException e) {
+                closing = true;
+            }
+            try {
+                buffer.clear();
+                for (Update update : batch) {
+                    if (update == CLOSE) {
+                        closing = true;
+                    } else {
+                        append(channel, update.username, update.score);
+                    }
+                }
+                flushBuffer(channel);
+                channel.force(false);
+                if (records > MIN_COMPACT_RECORDS && records > 2L * table.size()) compact();
+            } catch (IOException e) {
+                log.accept("Error writing scores to " + path + ": " + e.getMessage());
+            }
+            batch.clear();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.accept("Error closing score file " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void append(FileChannel target, String username, int score) throws IOException {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+        int recordLength = 2 + nameLength + 8;
+        if (buffer.remaining() < recordLength) {
+            flushBuffer(target);
+            buffer.clear();
+            if (buffer.capacity() < recordLength) buffer = ByteBuffer.allocate(recordLength);
+        }
+        buffer.putShort((short) nameLength);
+        buffer.put(name, 0, nameLength);
+        buffer.putInt(score);
+        buffer.putInt(checksum(name, nameLength, score));
+        records++;
+    }
+
+    private void flushBuffer(FileChannel target) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+            writes++;
+        }
+        buffer.clear();
+    }
+
+    private void compact() throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        long before = records;
+        long writesBefore = writes;
+        records = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out);
+            IOException[] failure = new IOException[1];
+            table.forEach((username, score) -> {
+                if (failure[0] != null) return;
+                try {
+                    append(out, username, score);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+            flushBuffer(out);
+            out.force(true);
+            lastCompactionWrites = writes - writesBefore;
+        } catch (IOException e) {
+            records = before;
+            buffer.clear();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    private static void writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) target.write(header);
+    }
+
+    private int checksum(byte[] name, int nameLength, int score) {
+        crc.reset();
+        crc.update(name, 0, nameLength);
+        crc.update(score >>> 24);
+        crc.update(score >>> 16);
+        crc.update(score >>> 8);
+        crc.update(score);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,279 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Username to score map using open addressing with linear probing, plus a
+ * top-K leaderboard kept sorted as scores change. Lookups and updates are
+ * O(1) expected; the leaderboard is touched in O(K) per update and is only
+ * rebuilt from the full table when a leaderboard entry's score goes down.
+ */
+public class ScoreTable {
+    private static final int MIN_CAPACITY = 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int topK;
+    private String[] keys = new String[MIN_CAPACITY];
+    private int[] values = new int[MIN_CAPACITY];
+    private int size = 0;
+    private final String[] topNames;
+    private final int[] topScores;
+    private int topCount = 0;
+    private ObjIntConsumer<String> listener;
+
+    public ScoreTable(int topK) {
+        if (topK < 1) throw new IllegalArgumentException("Leaderboard size: " + topK);
+        this.topK = topK;
+        this.topNames = new String[topK];
+        this.topScores = new int[topK];
+    }
+
+    public boolean putIfAbsent(String username, int score) {
+        lock.lock();
+        try {
+            if (keys[slot(keys, username)] != null) return false;
+            put(username, score);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int get(String username) {
+        lock.lock();
+        try {
+            int slot = slot(keys, username);
+            return keys[slot] == null ? 0 : values[slot];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void set(String username, int score) {
+        lock.lock();
+        try {
+            put(username, score);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Adds points to the user's score and returns the new total. */
+    public int add(String username, int points) {
+        lock.lock();
+        try {
+            int slot = slot(keys, username);
+            int score = (keys[slot] == null ? 0 : values[slot]) + points;
+            put(username, score);
+            return score;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads a score without touching the leaderboard or the listener; used
+     * for bulk recovery and must be followed by restoreComplete().
+     */
+    public void restore(String username, int score) {
+        lock.lock();
+        try {
+            int slot = slot(keys, username);
+            if (keys[slot] == null) {
+                if ((size + 1) * 2 > keys.length) {
+                    resize(keys.length * 2);
+                    slot = slot(keys, username);
+                }
+                keys[slot] = username;
+                size++;
+            }
+            values[slot] = score;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void restoreComplete() {
+        lock.lock();
+        try {
+            rebuildLeaderboard();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Sizes the table for at least expected users without further resizing. */
+    public void ensureCapacity(int expected) {
+        lock.lock();
+        try {
+            int capacity = keys.length;
+            while (capacity < expected * 2 && capacity < (1 << 30)) capacity <<= 1;
+            if (capacity > keys.length) resize(capacity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers a callback run under the table's lock with each changed
+     * score, so callbacks see updates in the order they were applied.
+     */
+    public void setListener(ObjIntConsumer<String> listener) {
+        lock.lock();
+        try {
+            this.listener = listener;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Visits every score in a copy of the table taken under the lock. */
+    public void forEach(ObjIntConsumer<String> action) {
+        String[] keySnapshot;
+        int[] valueSnapshot;
+        lock.lock();
+        try {
+            keySnapshot = keys.clone();
+            valueSnapshot = values.clone();
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i < keySnapshot.length; i++) {
+            if (keySnapshot[i] != null) action.accept(keySnapshot[i], valueSnapshot[i]);
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static final String NAME_RULES = "Usernames must not be blank or contain ',', '=', ';' or control characters.";
+
+    /**
+     * True for names that are not blank and cannot corrupt a message they are
+     * inlined into: the leaderboard's ',' and '=', the snapshot's ';', or a
+     * line break or other control character.
+     */
+    public static boolean isValidName(String name) {
+        if (name.trim().isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ',' || c == '=' || c == ';' || Character.isISOControl(c)) return false;
+        }
+        return true;
+    }
+
+    /** Returns the leaderboard as "name=score,name=score", highest first. */
+    public String leaderboard() {
+        lock.lock();
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < topCount; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(topNames[i]).append('=').append(topScores[i]);
+            }
+            return sb.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String username, int score) {
+        int slot = slot(keys, username);
+        if (keys[slot] == null) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+                slot = slot(keys, username);
+            }
+            keys[slot] = username;
+            size++;
+        }
+        values[slot] = score;
+        updateLeaderboard(username, score);
+        if (listener != null) listener.accept(username, score);
+    }
+
+    private static int slot(String[] keys, String key) {
+        int mask = keys.length - 1;
+        int h = key.hashCode() * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        while (keys[i] != null && !keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new String[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void updateLeaderboard(String username, int score) {
+        int index = -1;
+        for (int i = 0; i < topCount; i++) {
+            if (topNames[i].equals(username)) { index = i; break; }
+        }
+        if (index >= 0) {
+            if (score < topScores[index] && topCount == topK && size > topK) {
+                rebuildLeaderboard();
+                return;
+            }
+            topScores[index] = score;
+            siftUp(index);
+            siftDown(index);
+        } else if (topCount < topK) {
+            topNames[topCount] = username;
+            topScores[topCount] = score;
+            siftUp(topCount++);
+        } else if (score > topScores[topCount - 1]) {
+            topNames[topCount - 1] = username;
+            topScores[topCount - 1] = score;
+            siftUp(topCount - 1);
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0 && topScores[i] > topScores[i - 1]) {
+            swap(i, i - 1);
+            i--;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (i < topCount - 1 && topScores[i] < topScores[i + 1]) {
+            swap(i, i + 1);
+            i++;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String name = topNames[a];
+        topNames[a] = topNames[b];
+        topNames[b] = name;
+        int score = topScores[a];
+        topScores[a] = topScores[b];
+        topScores[b] = score;
+    }
+
+    private void rebuildLeaderboard() {
+        Arrays.fill(topNames, null);
+        topCount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) updateLeaderboard(keys[i], values[i]);
+        }
+    }
+}
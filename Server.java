@@ -1,405 +1,768 @@
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.io.*;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import javax.swing.DefaultListModel;
+import java.security.SecureRandom;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 public class Server {
-    static class UserScore {
-        String username;
-        int score;
-        UserScore(String username, int score) {
+    static final long RECONNECT_GRACE_SECONDS = 60;
+
+    /** Lets a player who dropped mid-game take their seat back with a token. */
+    static class Session {
+        final String token;
+        final String username;
+        ClientHandler handler;
+        ScheduledFuture<?> expiry;
+        boolean expired = false;
+
+        Session(String token, String username, ClientHandler handler) {
+            this.token = token;
             this.username = username;
-            this.score = score;
+            this.handler = handler;
         }
     }
 
-    private static DLList<ClientHandler> clients = new DLList<>();
+    private static final ClientRegistry<ClientHandler> clients = new ClientRegistry<>();
+    private static final DLList<GameTable> tables = new DLList<>();
+    private static final ReentrantLock tablesLock = new ReentrantLock();
+    private static int nextTableId = 1;
     private static volatile boolean isRunning = true;
-    private static int currentPlayerIndex = -1;
-    private static final DLList<UserScore> userScores = new DLList<>();
-    private static final DLList<String> readyPlayers = new DLList<>();
-    private static DLList<String> deck = new DLList<>();
-    private static DLList<String> discardPile = new DLList<>();
-    private static String currentSuit = null;
-    private static boolean gameStarted = false;
-    private static ClientHandler waitingForSuitPlayer = null;
-    private static String waitingForSuitCard = null;
-
-    private static void push(DLList<String> stack, String value) { stack.add(value); }
-    private static String pop(DLList<String> stack) { String v = stack.get(stack.size()-1); stack.remove(v); return v; }
-    private static String peek(DLList<String> stack) { return stack.get(stack.size()-1); }
-    private static void clear(DLList<?> list) { while (!list.isEmpty()) list.remove(0); }
-
-    private static boolean readyPlayersContains(String name) { return readyPlayers.contains(name); }
-    private static void readyPlayersAdd(String name) { if (!readyPlayers.contains(name)) readyPlayers.add(name); }
-    private static void readyPlayersClear() { clear(readyPlayers); }
+    private static final ExecutorService writers = newWriterExecutor();
+    private static final ExecutorService gameLoops = newGameLoopExecutor();
+    private static final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "game-timers");
+        t.setDaemon(true);
+        return t;
+    });
+    private static GameJournal journal = GameJournal.DISABLED;
+    static EventLog events = EventLog.inMemory();
+    private static volatile Consumer<String[]> clientListView;
+    private static final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private static final SecureRandom tokens = new SecureRandom();
+    private static ShuffleEngine shuffler = new ShuffleEngine(new SplittableRandom(), 1, writers, 256);
+    static final int LEADERBOARD_SIZE = 10;
+    static final int METRICS_PORT = 9414;
+    static final ServerMetrics metrics = new ServerMetrics();
+    private static final ScoreTable userScores = new ScoreTable(LEADERBOARD_SIZE);
 
     private static void userScoresPutIfAbsent(String username, int score) {
-        for (UserScore us : userScores) {
-            if (us.username.equals(username)) return;
-        }
-        userScores.add(new UserScore(username, score));
+        userScores.putIfAbsent(username, score);
     }
     private static int userScoresGet(String username) {
-        for (UserScore us : userScores) {
-            if (us.username.equals(username)) return us.score;
-        }
-        return 0;
+        return userScores.get(username);
     }
     private static void userScoresSet(String username, int score) {
-        for (UserScore us : userScores) {
-            if (us.username.equals(username)) { us.score = score; return; }
-        }
-        userScores.add(new UserScore(username, score));
+        userScores.set(username, score);
     }
-    private static Iterable<UserScore> userScoresEntrySet() { return userScores; }
-
-    private static void shuffle(DLList<String> list) {
-        java.util.Random rand = new java.util.Random();
-        for (int i = list.size() - 1; i > 0; i--) {
-            int j = rand.nextInt(i + 1);
-            String temp = list.get(i);
-            list.remove(temp);
-            list.add(j, temp);
-        }
+    static int userScoresAdd(String username, int points) {
+        return userScores.add(username, points);
+    }
+    static String leaderboardMessage() {
+        return "LEADERBOARD:" + userScores.leaderboard();
     }
 
     public static void main(String[] args) {
         int portNumber = 4414;
-        JFrame frame = new JFrame("Server Chat");
-        JTextArea chatArea = new JTextArea(20, 50);
-        JTextField inputField = new JTextField(40);
-        JButton sendButton = new JButton("Send");
-        JButton startGameButton = new JButton("Start Game");
-        JList<String> clientList = new JList<>(new DefaultListModel<>());
-        JPanel panel = new JPanel();
-
-        chatArea.setEditable(false);
-        panel.add(inputField);
-        panel.add(sendButton);
-        panel.add(startGameButton);
-        JLabel infoLabel = new JLabel("Type 'y' in the chat to end the game.");
-        panel.add(infoLabel);
-
-        frame.setLayout(new BorderLayout());
-        frame.add(new JScrollPane(chatArea), BorderLayout.CENTER);
-        frame.add(panel, BorderLayout.SOUTH);
-        frame.add(new JScrollPane(clientList), BorderLayout.EAST);
-        frame.pack();
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setVisible(true);
-
-        sendButton.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                String message = inputField.getText();
-                if (!message.isEmpty()) {
-                    if (message.trim().equalsIgnoreCase("y")) {
-                        broadcastToAllClients("GAME_OVER:Server");
-                        gameStarted = false;
-                        waitingForSuitPlayer = null;
-                        waitingForSuitCard = null;
-                        chatArea.append("Game ended by server.\n");
-                    } else {
-                        chatArea.append("Server: " + message + "\n");
-                        broadcastToAllClients("Server: " + message);
-                    }
-                    inputField.setText("");
+        boolean headless = hasFlag(args, "--headless");
+        if (headless) System.setProperty("java.awt.headless", "true");
+        String logFile = flagValue(args, "--log=");
+        Path logPath = Paths.get(logFile != null ? logFile : "server.log");
+        try {
+            EventLog embedded = events;
+            events = EventLog.open(logPath);
+            // the class-init default would otherwise keep its drainer polling for the life of the process
+            embedded.close();
+            Runtime.getRuntime().addShutdownHook(new Thread(events::close, "log-flush"));
+        } catch (IOException e) {
+            System.err.println("Logging to " + logPath + " failed, events will not be kept: " + e.getMessage());
+        }
+        if (headless) {
+            readConsoleCommands();
+        } else {
+            ServerConsole.show(events);
+        }
+
+        String seed = flagValue(args, "--seed=");
+        if (seed != null) {
+            shuffler = new ShuffleEngine(Long.parseLong(seed));
+            events.log("Dealing reproducible games from seed " + seed + ".");
+        }
+        String scoreFile = flagValue(args, "--scores=");
+        openScoreStore(Paths.get(scoreFile != null ? scoreFile : "scores.log"));
+        String journalFile = flagValue(args, "--journal=");
+        openJournal(Paths.get(journalFile != null ? journalFile : "games.journal"));
+        String metricsPort = flagValue(args, "--metrics-port=");
+        startMetrics(metricsPort != null ? metricsPort : String.valueOf(METRICS_PORT));
+        String mode = hasFlag(args, "--nio") ? "nio" : hasFlag(args, "--virtual") ? "virtual" : "threads";
+        serve(portNumber, mode);
+    }
+
+    /** Runs one line typed at the server: y ends every game, /tables lists tables, anything else is announced. */
+    static void handleConsoleCommand(String message) {
+        if (message.trim().equalsIgnoreCase("y")) {
+            broadcastToAllClients("GAME_OVER:Server");
+            tablesLock.lock();
+            try {
+                for (GameTable table : tables) {
+                    table.endGame();
                 }
+            } finally {
+                tablesLock.unlock();
             }
-        });
+            displayFinalScores();
+            events.log("Game ended by server.");
+        } else if (message.trim().equalsIgnoreCase("/tables")) {
+            logTableStats();
+        } else {
+            events.log("Server: " + message);
+            broadcastToAllClients("Server: " + message);
+        }
+    }
 
-        startGameButton.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                startGame();
+    static void startAllGames() {
+        tablesLock.lock();
+        try {
+            for (GameTable table : tables) {
+                table.startGame();
             }
-        });
+        } finally {
+            tablesLock.unlock();
+        }
+    }
+
+    static void setClientListView(Consumer<String[]> view) {
+        clientListView = view;
+    }
 
+    /** In headless mode, console commands come from standard input when there is one. */
+    private static void readConsoleCommands() {
+        Thread reader = new Thread(() -> {
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.isEmpty()) handleConsoleCommand(line);
+                }
+            } catch (IOException e) {
+                // no console attached
+            }
+        }, "console-input");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    static void serve(int portNumber, String mode) {
+        shuffler.pregenerate(256);
+        if (mode.equals("nio")) {
+            int ioThreads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+            events.log("Server started in NIO mode with " + ioThreads + " I/O threads on port " + portNumber + "...");
+            new NioServer(portNumber, ioThreads, connection -> {
+                events.log("New client connected from " + connection.getRemoteAddress());
+                ClientHandler clientHandler = new ClientHandler(connection);
+                clients.add(clientHandler);
+                return clientHandler;
+            }).run();
+            isRunning = false;
+            return;
+        }
+
+        ExecutorService virtualThreads = mode.equals("virtual") ? newVirtualThreadExecutor() : null;
+        if (mode.equals("virtual") && virtualThreads == null) {
+            events.log("Virtual threads need Java 21 or newer; using platform threads.");
+        }
         try (ServerSocket serverSocket = new ServerSocket(portNumber)) {
-            chatArea.append("Server started. Waiting for clients on port " + portNumber + "...\n");
-            chatArea.append("Server is now listening for connections on IP: " + InetAddress.getLocalHost().getHostAddress() + "\n");
+            events.log("Server started. Waiting for clients on port " + portNumber + "...");
+            events.log("Server is now listening for connections on IP: " + InetAddress.getLocalHost().getHostAddress());
             while (isRunning) {
                 try {
                     Socket clientSocket = serverSocket.accept();
-                    chatArea.append("New client connected from " + clientSocket.getInetAddress() + "\n");
-                    ClientHandler clientHandler = new ClientHandler(clientSocket, chatArea, clientList);
+                    clientSocket.setTcpNoDelay(true);
+                    events.log("New client connected from " + clientSocket.getInetAddress());
+                    ClientHandler clientHandler = new ClientHandler(clientSocket);
                     clients.add(clientHandler);
-                    new Thread(clientHandler).start();
+                    if (virtualThreads != null) {
+                        virtualThreads.execute(clientHandler);
+                    } else {
+                        new Thread(clientHandler).start();
+                    }
                 } catch (IOException e) {
                     if (isRunning) {
-                        chatArea.append("Error accepting client connection: " + e.getMessage() + "\n");
+                        events.log("Error accepting client connection: " + e.getMessage());
                     }
                 }
             }
         } catch (IOException e) {
-            chatArea.append("Exception caught when trying to listen on port " + portNumber + " or listening for a connection\n");
-            chatArea.append(e.getMessage() + "\n");
+            events.log("Exception caught when trying to listen on port " + portNumber + " or listening for a connection");
+            events.log(e.getMessage());
         } finally {
             isRunning = false;
+            if (virtualThreads != null) virtualThreads.shutdown();
         }
     }
 
-    private static synchronized void startGame() {
-        if (readyPlayers.size() < clients.size()) {
-            broadcastToAllClients("Waiting for all players to press 'Start'...");
-            return;
+    private static ExecutorService newWriterExecutor() {
+        ExecutorService executor = newVirtualThreadExecutor();
+        if (executor != null) return executor;
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "client-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static ExecutorService newGameLoopExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "game-loop");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** True on runtimes with virtual threads (Java 21+); "virtual" mode falls back to platform threads elsewhere. */
+    static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
         }
-        broadcastToAllClients("CLEAR_CHAT");
-        broadcastToAllClients("Game is starting...");
-        initializeDeck();
-        dealCards();
-        push(discardPile, pop(deck));
-        currentSuit = getCardSuit(peek(discardPile));
-        broadcastToAllClients("First card: " + peek(discardPile));
-        broadcastToAllClients("CURRENT_CARD:" + peek(discardPile));
-        gameStarted = true;
-        nextTurn();
     }
 
-    private static synchronized void restartGame() {
-        clear(deck);
-        clear(discardPile);
-        currentSuit = null;
-        gameStarted = false;
-        waitingForSuitPlayer = null;
-        waitingForSuitCard = null;
-        readyPlayersClear();
-        for (ClientHandler client : clients) {
-            client.hand.clear();
-        }
-        broadcastToAllClients("Game is restarting...");
-        for (ClientHandler client : clients) {
-            readyPlayersAdd(client.getUsername());
-        }
-        startGame();
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
     }
 
-    private static void initializeDeck() {
-        String[] suits = {"Hearts", "Diamonds", "Clubs", "Spades"};
-        String[] ranks = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "Jack", "Queen", "King", "Ace"};
-        for (String suit : suits) {
-            for (String rank : ranks) {
-                deck.add(rank + " of " + suit);
-            }
+    private static void openScoreStore(Path path) {
+        long start = System.nanoTime();
+        try {
+            ScoreStore store = ScoreStore.open(path, userScores, events::log);
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "score-flush"));
+            events.log("Loaded " + userScores.size() + " scores from " + path + " in "
+                    + (System.nanoTime() - start) / 1000000 + " ms.");
+        } catch (IOException e) {
+            events.log("Scores will not be saved; could not open " + path + ": " + e.getMessage());
         }
-        shuffle(deck);
     }
 
-    private static void dealCards() {
-        for (ClientHandler client : clients) {
-            for (int i = 0; i < 5; i++) {
-                client.addCardToHand(pop(deck));
+    private static void openJournal(Path path) {
+        try {
+            java.util.List<GameState> inFlight = GameJournal.recover(path, events::log);
+            journal = GameJournal.open(path, events::log);
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "journal-flush"));
+            tablesLock.lock();
+            try {
+                for (GameState state : inFlight) {
+                    GameTable table = new GameTable(state.tableId, shuffler, gameLoops, journal);
+                    table.restore(state, timers);
+                    tables.add(table);
+                    nextTableId = Math.max(nextTableId, state.tableId + 1);
+                }
+            } finally {
+                tablesLock.unlock();
             }
-            client.sendHand();
+            if (!inFlight.isEmpty()) {
+                events.log("Recovered " + inFlight.size() + " in-progress games from " + path
+                        + "; they resume when their players log back in.");
+            }
+        } catch (IOException e) {
+            events.log("Games will not be journaled; could not open " + path + ": " + e.getMessage());
         }
     }
 
-    private static void nextTurn() {
-        currentPlayerIndex = (currentPlayerIndex + 1) % clients.size();
-        ClientHandler currentPlayer = clients.get(currentPlayerIndex);
-        currentPlayer.sendMessage("CURRENT_CARD:" + peek(discardPile));
-        broadcastToAllClients("It's " + currentPlayer.getUsername() + "'s turn.");
-        currentPlayer.sendMessage("YOUR_TURN");
-        currentPlayer.sendHand();
+    /** Registers the server gauges and exports metrics over JMX and, unless port is "off", HTTP. */
+    private static void startMetrics(String port) {
+        metrics.gauge("c8_tables", "Open tables.", () -> {
+            tablesLock.lock();
+            try {
+                return tables.size();
+            } finally {
+                tablesLock.unlock();
+            }
+        });
+        metrics.gauge("c8_games_in_progress", "Tables with a game running.", () -> {
+            tablesLock.lock();
+            try {
+                int running = 0;
+                for (GameTable table : tables) {
+                    if (table.isGameStarted()) running++;
+                }
+                return running;
+            } finally {
+                tablesLock.unlock();
+            }
+        });
+        metrics.gauge("c8_table_mailbox_depth", "Commands waiting in every table's mailbox.", () -> {
+            tablesLock.lock();
+            try {
+                long depth = 0;
+                for (GameTable table : tables) depth += table.mailboxDepth();
+                return depth;
+            } finally {
+                tablesLock.unlock();
+            }
+        });
+        metrics.gauge("c8_outbound_queue_depth", "Messages waiting in client outbound queues.", () -> {
+            long depth = 0;
+            for (Object client : clients.snapshot()) depth += ((ClientHandler) client).outboundDepth();
+            return depth;
+        });
+        metrics.gauge("c8_sessions", "Login sessions, including ones held for a reconnect.", sessions::size);
+        try {
+            metrics.registerMBean();
+        } catch (Exception e) {
+            events.log("Metrics are not available over JMX: " + e.getMessage());
+        }
+        if (port.equals("off")) return;
+        try {
+            metrics.startHttp(Integer.parseInt(port));
+            events.log("Metrics at http://localhost:" + port + "/metrics");
+        } catch (IOException e) {
+            events.log("Metrics endpoint could not bind port " + port + ": " + e.getMessage());
+        }
     }
 
-    private static String getCardSuit(String card) {
-        return card.split(" of ")[1];
+    private static boolean hasFlag(String[] args, String flag) {
+        for (String arg : args) {
+            if (arg.equals(flag)) return true;
+        }
+        return false;
     }
 
-    private static void handlePlayerMove(ClientHandler player, String card) {
-        if (waitingForSuitPlayer != null) {
-            player.sendMessage("Please choose a suit before making another move.");
-            return;
+    private static String flagValue(String[] args, String prefix) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) return arg.substring(prefix.length());
         }
-        if (card.equals("DRAW")) {
-            if (!deck.isEmpty()) {
-                String drawnCard = pop(deck);
-                player.addCardToHand(drawnCard);
-                player.sendMessage("DRAWN_CARD:" + drawnCard);
-            } else {
-                player.sendMessage("NO_CARDS_LEFT: The deck is empty.");
+        return null;
+    }
+
+    private static GameTable joinOpenTable(ClientHandler player) {
+        tablesLock.lock();
+        try {
+            for (GameTable table : tables) {
+                if (table.tryReclaimSeat(player.getUsername())) {
+                    events.log(player.getUsername() + " reclaimed a recovered seat at table " + table.getId() + " by name.");
+                    table.rejoin(player);
+                    return table;
+                }
             }
-            return;
-        }
-        if (!player.getHand().contains(card)) {
-            player.sendMessage("Invalid move: You don't have that card.");
-            return;
+            for (GameTable table : tables) {
+                if (table.tryReserveSeat()) {
+                    table.join(player);
+                    return table;
+                }
+            }
+            GameTable table = new GameTable(nextTableId++, shuffler, gameLoops, journal);
+            table.tryReserveSeat();
+            table.join(player);
+            tables.add(table);
+            return table;
+        } finally {
+            tablesLock.unlock();
         }
-        String cardSuit = getCardSuit(card);
-        String currentCardRank = peek(discardPile).split(" of ")[0];
-        if (cardSuit.equals(currentSuit) || card.startsWith("8") || card.startsWith(currentCardRank)) {
-            player.removeCardFromHand(card);
-            push(discardPile, card);
-            if (card.startsWith("8")) {
-                waitingForSuitPlayer = player;
-                waitingForSuitCard = card;
-                player.sendMessage("CHOOSE_SUIT");
-                return;
-            } else {
-                currentSuit = cardSuit;
+    }
+
+    private static void logTableStats() {
+        tablesLock.lock();
+        try {
+            if (tables.isEmpty()) events.log("No open tables.");
+            for (GameTable table : tables) {
+                events.log("Table " + table.getId() + ": " + table.playerCount() + " players, "
+                        + (table.isResuming() ? "resuming" : table.isGameStarted() ? "in game" : "waiting") + ", mailbox " + table.mailboxDepth()
+                        + ", " + table.commandsProcessed() + " commands, avg " + table.averageProcessingNanos() / 1000
+                        + " us, max " + table.maxProcessingNanos() / 1000 + " us");
             }
-            broadcastToAllClients(player.getUsername() + " played: " + card);
-            broadcastToAllClients("CURRENT_CARD:" + card);
-            if (player.getHand().isEmpty()) {
-                broadcastToAllClients(player.getUsername() + " wins the game!");
-                gameStarted = false;
-                waitingForSuitPlayer = null;
-                waitingForSuitCard = null;
-                return;
+        } finally {
+            tablesLock.unlock();
+        }
+    }
+
+    private static void leaveTable(ClientHandler player, GameTable table) {
+        tablesLock.lock();
+        try {
+            table.leave(player);
+            if (table.isEmpty()) {
+                tables.remove(table);
             }
-            nextTurn();
-        } else {
-            player.sendMessage("Invalid move: Card does not match the current suit or rank.");
+        } finally {
+            tablesLock.unlock();
         }
     }
 
-    private static void displayFinalScores() {
-        broadcastToAllClients("Final Scores:");
-        for (UserScore entry : userScoresEntrySet()) {
-            broadcastToAllClients(entry.username + ": " + entry.score + " points");
+    private static String newSessionToken() {
+        byte[] bytes = new byte[16];
+        tokens.nextBytes(bytes);
+        StringBuilder sb = new StringBuilder(32);
+        for (byte b : bytes) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+
+    private static void expireSession(Session session, ClientHandler handler) {
+        synchronized (session) {
+            if (session.handler != handler || session.expired) return;
+            session.expired = true;
+            sessions.remove(session.token);
         }
+        GameTable table = handler.table;
+        leaveTable(handler, table);
+        table.broadcast(session.username + " did not reconnect in time and left the game.");
+    }
+
+    private static void displayFinalScores() {
+        broadcastToAllClients(leaderboardMessage());
     }
 
     private static void broadcastToAllClients(String message) {
-        for (ClientHandler client : clients) {
-            client.sendMessage(message);
+        long start = System.nanoTime();
+        Object[] recipients = clients.snapshot();
+        for (Object client : recipients) {
+            ((ClientHandler) client).sendMessage(message);
         }
+        metrics.broadcastSent(recipients.length, System.nanoTime() - start);
     }
 
     static class ClientHandler implements Runnable {
+        static final int FULL_SYNC_INTERVAL = 32;
+
         private Socket socket;
-        private JTextArea chatArea;
-        private JList<String> clientList;
-        private PrintWriter out;
-        private BufferedReader in;
+        private NioServer.Connection connection;
+        private OutboundQueue out;
+        private DataInputStream in;
         private String username;
-        private DLList<String> hand = new DLList<>();
-
-        public ClientHandler(Socket socket, JTextArea chatArea, JList<String> clientList) {
+        private final Object sendLock = new Object();
+        private volatile boolean binary = false;
+        private boolean negotiating = false;
+        private GameTable table;
+        private Session session;
+        private final AtomicBoolean disconnected = new AtomicBoolean(false);
+        private final Hand hand = new Hand();
+        private boolean deltaSync = false;
+        private boolean fullSyncPending = false;
+        private int handVersion = 0;
+        private int lastFullSyncVersion = 0;
+
+        public ClientHandler(Socket socket) {
             this.socket = socket;
-            this.chatArea = chatArea;
-            this.clientList = clientList;
+            metrics.connectionOpened();
             try {
-                this.out = new PrintWriter(socket.getOutputStream(), true);
-                this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                this.out = new OutboundQueue(new BufferedOutputStream(socket.getOutputStream()), writers, this::evict, this::closeSocket);
+                this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
             } catch (IOException e) {
-                chatArea.append("Error setting up client streams: " + e.getMessage() + "\n");
+                events.log("Error setting up client streams: " + e.getMessage());
             }
         }
 
+        public ClientHandler(NioServer.Connection connection) {
+            this.connection = connection;
+            metrics.connectionOpened();
+        }
+
         @Override
         public void run() {
             try {
-                username = in.readLine();
-                userScoresPutIfAbsent(username, 0);
-                broadcastToAllClients(username + " has joined the game!");
-                updateClientList();
-                String message;
-                while ((message = in.readLine()) != null) {
-                    if (message.equals("START_GAME")) {
-                        synchronized (readyPlayers) {
-                            readyPlayersAdd(username);
-                        }
-                        broadcastToAllClients(username + " is ready to start!");
-                        if (!gameStarted) startGame();
-                    } else if (message.equalsIgnoreCase("RESTART")) {
-                        broadcastToAllClients(username + " requested a restart!");
-                        restartGame();
-                    } else if (message.startsWith("PLAY:")) {
-                        String card = message.substring(5);
-                        handlePlayerMove(this, card);
-                    } else if (message.equals("DRAW")) {
-                        handlePlayerMove(this, "DRAW");
-                    } else if (message.startsWith("CHAT:")) {
-                        String chatMessage = message.substring(5);
-                        broadcastToAllClients(username + ": " + chatMessage);
-                    } else if (message.startsWith("SUIT:")) {
-                        String suit = message.substring(5).trim();
-                        if (waitingForSuitPlayer == this && waitingForSuitCard != null) {
-                            currentSuit = suit;
-                            broadcastToAllClients(username + " chose suit: " + suit);
-                            broadcastToAllClients("CURRENT_CARD:" + waitingForSuitCard);
-                            if (hand.isEmpty()) {
-                                broadcastToAllClients(username + " wins the game!");
-                                gameStarted = false;
-                            } else {
-                                nextTurn();
-                            }
-                            waitingForSuitPlayer = null;
-                            waitingForSuitCard = null;
-                        } else {
-                            sendMessage("Not expecting a suit selection from you.");
-                        }
+                int[] opcode = new int[1];
+                while (true) {
+                    if (binary) {
+                        byte[] payload = BinaryProtocol.readFrame(in, opcode);
+                        if (payload == null) break;
+                        onFrame(opcode[0], payload);
+                    } else {
+                        String message = BinaryProtocol.readLine(in);
+                        if (message == null) break;
+                        onLine(message);
                     }
                 }
             } catch (IOException e) {
                 if (!socket.isClosed()) {
-                    chatArea.append("Error reading from client (" + socket.getInetAddress() + "): " + e.getMessage() + "\n");
+                    events.log("Error reading from client (" + socket.getInetAddress() + "): " + e.getMessage());
                 }
             } finally {
                 cleanup();
             }
         }
 
+        public void onLine(String message) {
+            if (username == null) {
+                if (message.startsWith("RESUME:")) {
+                    metrics.commandReceived(ServerMetrics.RESUME);
+                    if (resume(message.substring(7).trim())) {
+                        negotiating = true;
+                    } else {
+                        sendMessage("RESUME_FAILED");
+                    }
+                    return;
+                }
+                metrics.commandReceived(ServerMetrics.LOGIN);
+                if (!ScoreTable.isValidName(message)) {
+                    sendMessage("LOGIN_FAILED: " + ScoreTable.NAME_RULES);
+                    return;
+                }
+                login(message);
+                negotiating = true;
+                return;
+            }
+            if (negotiating) {
+                negotiating = false;
+                if (message.equals(BinaryProtocol.NEGOTIATE)) {
+                    synchronized (sendLock) {
+                        sendMessage(BinaryProtocol.ACCEPTED);
+                        binary = true;
+                    }
+                    if (connection != null) connection.setBinary(true);
+                    return;
+                }
+            }
+            handleCommand(message);
+        }
+
+        public void onFrame(int opcode, byte[] payload) {
+            if (opcode == BinaryProtocol.PLAY && payload.length == 1) {
+                metrics.commandReceived(ServerMetrics.PLAY);
+                table.handlePlayerMove(this, payload[0] & 0xFF);
+                return;
+            }
+            String command = BinaryProtocol.decodeClientCommand(opcode, payload);
+            if (command != null) handleCommand(command);
+        }
+
+        private void evict() {
+            events.log("Disconnecting slow client " + username + " (outbound queue full).");
+            closeSocket();
+        }
+
+        /** Drops a connection whose writes failed; the reader thread then runs cleanup. */
+        private void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // reader thread will run cleanup
+            }
+        }
+
+        public void onDisconnect() {
+            cleanup();
+        }
+
+        private void login(String name) {
+            username = name;
+            userScoresPutIfAbsent(username, 0);
+            table = joinOpenTable(this);
+            session = new Session(newSessionToken(), username, this);
+            sessions.put(session.token, session);
+            sendMessage("SESSION:" + session.token);
+            updateClientList();
+        }
+
+        private boolean resume(String token) {
+            Session found = sessions.get(token);
+            if (found == null) return false;
+            ClientHandler previous;
+            synchronized (found) {
+                previous = found.handler;
+            }
+            if (!previous.disconnected.get()) previous.cleanup();
+            synchronized (found) {
+                if (found.expired || found.handler != previous || found.expiry == null) return false;
+                found.expiry.cancel(false);
+                found.expiry = null;
+                found.handler = this;
+            }
+            session = found;
+            username = found.username;
+            table = previous.table;
+            sendMessage("RESUMED");
+            table.resume(previous, this);
+            events.log(username + " resumed their session.");
+            updateClientList();
+            return true;
+        }
+
+        private void handleCommand(String message) {
+            if (message.equals("START_GAME")) {
+                metrics.commandReceived(ServerMetrics.START_GAME);
+                table.markReady(username);
+            } else if (message.equalsIgnoreCase("RESTART")) {
+                metrics.commandReceived(ServerMetrics.RESTART);
+                table.broadcast(username + " requested a restart!");
+                table.restartGame();
+            } else if (message.startsWith("PLAY:")) {
+                metrics.commandReceived(ServerMetrics.PLAY);
+                table.handlePlayerMove(this, Card.parse(message.substring(5)));
+            } else if (message.equals("DRAW")) {
+                metrics.commandReceived(ServerMetrics.DRAW);
+                table.handleDraw(this);
+            } else if (message.startsWith("CHAT:")) {
+                metrics.commandReceived(ServerMetrics.CHAT);
+                String chatMessage = message.substring(5);
+                table.broadcast(username + ": " + chatMessage);
+            } else if (message.startsWith("SUIT:")) {
+                metrics.commandReceived(ServerMetrics.SUIT);
+                table.handleSuitChoice(this, Card.parseSuit(message.substring(5).trim()));
+            } else if (message.equals("SYNC:DELTA") || message.equals("RESYNC")) {
+                metrics.commandReceived(ServerMetrics.SYNC);
+                table.resyncHand(this);
+            } else if (message.equals("LEADERBOARD")) {
+                metrics.commandReceived(ServerMetrics.LEADERBOARD);
+                sendMessage(leaderboardMessage());
+            } else {
+                metrics.commandReceived(ServerMetrics.OTHER_COMMAND);
+            }
+        }
+
         public String getUsername() {
             return username;
         }
 
         public void sendMessage(String message) {
+            if (disconnected.get()) return;
+            metrics.messageSent(message);
             try {
-                out.println(message);
+                synchronized (sendLock) {
+                    if (binary) {
+                        byte[] frame = BinaryProtocol.encodeServerMessage(message);
+                        if (connection != null) connection.send(frame); else out.offer(frame);
+                    } else if (connection != null) {
+                        connection.send(message);
+                    } else {
+                        out.offer(message);
+                    }
+                }
             } catch (Exception e) {
-                chatArea.append("Error sending message to client: " + e.getMessage() + "\n");
+                events.log("Error sending message to client: " + e.getMessage());
             }
         }
 
-        public void addCardToHand(String card) {
+        int outboundDepth() {
+            if (connection != null) return connection.depth();
+            return out != null ? out.depth() : 0;
+        }
+
+        public void addCardToHand(int card) {
             hand.add(card);
+            handVersion++;
+            if (deltaSync && !fullSyncPending) sendMessage("HAND_ADD:" + handVersion + ":" + Card.name(card));
+        }
+
+        public void removeCardFromHand(int card) {
+            if (!hand.remove(card)) return;
+            handVersion++;
+            if (deltaSync && !fullSyncPending) sendMessage("HAND_REMOVE:" + handVersion + ":" + Card.name(card));
         }
 
-        public void removeCardFromHand(String card) {
-            hand.remove(card);
+        public void clearHand() {
+            hand.clear();
+            handVersion++;
+            fullSyncPending = true;
         }
 
-        public DLList<String> getHand() {
+        public Hand getHand() {
             return hand;
         }
 
+        void adoptHand(Hand previous) {
+            hand.clear();
+            for (int c = previous.nextCard(0); c >= 0; c = previous.nextCard(c + 1)) hand.add(c);
+            handVersion++;
+        }
+
+        /** Returns "version:cards" and counts as a full sync for delta clients. */
+        String handSnapshot() {
+            fullSyncPending = false;
+            lastFullSyncVersion = handVersion;
+            return handVersion + ":" + joinHand();
+        }
+
+        private void endSession() {
+            synchronized (session) {
+                if (session.handler != this) return;
+                session.expired = true;
+            }
+            sessions.remove(session.token);
+        }
+
         public void sendHand() {
+            if (deltaSync) {
+                if (fullSyncPending || handVersion - lastFullSyncVersion >= FULL_SYNC_INTERVAL) sendFullSync();
+                return;
+            }
+            fullSyncPending = false;
+            sendMessage("HAND:" + joinHand());
+        }
+
+        void enableDeltaSync() {
+            deltaSync = true;
+            sendFullSync();
+        }
+
+        private void sendFullSync() {
+            fullSyncPending = false;
+            lastFullSyncVersion = handVersion;
+            sendMessage("HAND_SYNC:" + handVersion + ":" + joinHand());
+        }
+
+        private String joinHand() {
+            return formatHand(hand);
+        }
+
+        /** Comma-separated card names in id order, as sent after HAND: and HAND_SYNC:. */
+        static String formatHand(Hand hand) {
             StringBuilder sb = new StringBuilder();
-            for (String c : hand) {
+            for (int c = hand.nextCard(0); c >= 0; c = hand.nextCard(c + 1)) {
                 if (sb.length() > 0) sb.append(",");
-                sb.append(c);
+                sb.append(Card.name(c));
             }
-            sendMessage("HAND:" + sb.toString());
+            return sb.toString();
         }
 
         private void updateClientList() {
-            DefaultListModel<String> model = (DefaultListModel<String>) clientList.getModel();
-            model.clear();
-            for (ClientHandler client : clients) {
-                model.addElement(client.getUsername());
-            }
+            Consumer<String[]> view = clientListView;
+            if (view == null) return;
+            Object[] snapshot = clients.snapshot();
+            String[] names = new String[snapshot.length];
+            for (int i = 0; i < names.length; i++) names[i] = ((ClientHandler) snapshot[i]).getUsername();
+            view.accept(names);
         }
 
         private void cleanup() {
+            if (!disconnected.compareAndSet(false, true)) return;
+            metrics.connectionClosed();
             try {
-                if (!socket.isClosed()) {
+                if (connection != null) {
+                    connection.close();
+                } else if (!socket.isClosed()) {
+                    if (out != null) out.close();
                     socket.close();
                 }
             } catch (IOException e) {
-                chatArea.append("Error closing client socket: " + e.getMessage() + "\n");
+                events.log("Error closing client socket: " + e.getMessage());
             } finally {
                 clients.remove(this);
+                if (table != null && session != null && table.suspend(this)) {
+                    synchronized (session) {
+                        session.expiry = timers.schedule(() -> expireSession(session, this), RECONNECT_GRACE_SECONDS, TimeUnit.SECONDS);
+                    }
+                    events.log(username + " dropped; holding their seat for " + RECONNECT_GRACE_SECONDS + " seconds.");
+                } else if (table != null) {
+                    leaveTable(this, table);
+                    if (session != null) endSession();
+                }
                 updateClientList();
-                chatArea.append("Client disconnected.\n");
+                events.log("Client disconnected.");
             }
         }
     }
@@ -0,0 +1,71 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * Optional Swing window over the server's event stream. Event batches go
+ * straight into a bounded ConsolePane, and the window keeps the connected
+ * player list; typed lines go to Server.handleConsoleCommand.
+ */
+public class ServerConsole {
+    static final int CONSOLE_LINES = 5000;
+
+    private final ConsolePane chatArea = new ConsolePane(20, 50, CONSOLE_LINES);
+    private final DefaultListModel<String> clientModel = new DefaultListModel<>();
+
+    public static void show(EventLog events) {
+        ServerConsole console = new ServerConsole();
+        events.addListener(console.chatArea::appendLines);
+        Server.setClientListView(console::onClients);
+        SwingUtilities.invokeLater(console::build);
+    }
+
+    private void build() {
+        JFrame frame = new JFrame("Server Chat");
+        JTextField inputField = new JTextField(40);
+        JButton sendButton = new JButton("Send");
+        JButton startGameButton = new JButton("Start Game");
+        JList<String> clientList = new JList<>(clientModel);
+        JPanel panel = new JPanel();
+
+        panel.add(inputField);
+        panel.add(sendButton);
+        panel.add(startGameButton);
+        JLabel infoLabel = new JLabel("Type 'y' in the chat to end the game.");
+        panel.add(infoLabel);
+
+        frame.setLayout(new BorderLayout());
+        frame.add(chatArea, BorderLayout.CENTER);
+        frame.add(panel, BorderLayout.SOUTH);
+        frame.add(new JScrollPane(clientList), BorderLayout.EAST);
+        frame.pack();
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setVisible(true);
+
+        sendButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String message = inputField.getText();
+                if (!message.isEmpty()) {
+                    Server.handleConsoleCommand(message);
+                    inputField.setText("");
+                }
+            }
+        });
+
+        startGameButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Server.startAllGames();
+            }
+        });
+    }
+
+    private void onClients(String[] names) {
+        SwingUtilities.invokeLater(() -> {
+            clientModel.clear();
+            for (String name : names) clientModel.addElement(name);
+        });
+    }
+}
@@ -0,0 +1,244 @@
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters and latency histograms for the server. Every hot-path update is
+ * a LongAdder increment, so threads recording at once do not contend on a
+ * shared cache line. Values are exported over JMX and as Prometheus text
+ * from GET /metrics on a loopback-only HTTP port.
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+    static final String[] COMMANDS = {"LOGIN", "RESUME", "START_GAME", "RESTART", "PLAY", "DRAW", "CHAT", "SUIT", "SYNC", "LEADERBOARD", "OTHER"};
+    static final int LOGIN = 0;
+    static final int RESUME = 1;
+    static final int START_GAME = 2;
+    static final int RESTART = 3;
+    static final int PLAY = 4;
+    static final int DRAW = 5;
+    static final int CHAT = 6;
+    static final int SUIT = 7;
+    static final int SYNC = 8;
+    static final int LEADERBOARD = 9;
+    static final int OTHER_COMMAND = 10;
+    private static final String[] OUTBOUND = {"HAND", "HAND_ADD", "HAND_REMOVE", "HAND_SYNC", "CURRENT_CARD", "YOUR_TURN",
+            "CHOOSE_SUIT", "DRAWN_CARD", "NO_CARDS_LEFT", "LEADERBOARD", "SNAPSHOT", "SESSION", "TEXT"};
+
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsActive = new LongAdder();
+    private final LongAdder[] messagesIn = adders(COMMANDS.length);
+    private final LongAdder[] messagesOut = adders(OUTBOUND.length);
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final LatencyHistogram broadcastTime = new LatencyHistogram();
+    private final LongAdder broadcastRecipients = new LongAdder();
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+    private HttpServer http;
+
+    private static final class Gauge {
+        final String name;
+        final String help;
+        final LongSupplier value;
+
+        Gauge(String name, String help, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.value = value;
+        }
+    }
+
+    public void connectionOpened() {
+        connectionsOpened.increment();
+        connectionsActive.increment();
+    }
+
+    public void connectionClosed() {
+        connectionsActive.decrement();
+    }
+
+    public void commandReceived(int command) {
+        messagesIn[command].increment();
+    }
+
+    public void messageSent(String message) {
+        messagesOut[outboundType(message)].increment();
+    }
+
+    /** Time from a move being posted to the table until the table has finished with it. */
+    public void moveHandled(long nanos) {
+        moveLatency.record(nanos);
+    }
+
+    public void broadcastSent(int recipients, long nanos) {
+        broadcastTime.record(nanos);
+        broadcastRecipients.add(recipients);
+    }
+
+    /** Adds a value read at scrape time, such as games in progress or queue depths. */
+    public void gauge(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, help, value));
+    }
+
+    public void registerMBean() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("CrazyEights:type=ServerMetrics"));
+    }
+
+    /** Serves GET /metrics on the loopback interface only. */
+    public synchronized void startHttp(int port) throws IOException {
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/metrics", exchange -> {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] body = render().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        http.start();
+    }
+
+    public synchronized void stopHttp() {
+        if (http != null) http.stop(0);
+        http = null;
+    }
+
+    /** All metrics in the Prometheus text exposition format. */
+    public String render() {
+        StringBuilder sb = new StringBuilder(4096);
+        counter(sb, "c8_connections_opened_total", "Client connections accepted.", connectionsOpened.sum());
+        gauge(sb, "c8_connections_active", "Client connections currently open.", connectionsActive.sum());
+        sb.append("# HELP c8_messages_in_total Client commands received, by command.\n");
+        sb.append("# TYPE c8_messages_in_total counter\n");
+        for (int i = 0; i < COMMANDS.length; i++) {
+            sb.append("c8_messages_in_total{type=\"").append(COMMANDS[i]).append("\"} ").append(messagesIn[i].sum()).append('\n');
+        }
+        sb.append("# HELP c8_messages_out_total Messages queued to clients, by message type.\n");
+        sb.append("# TYPE c8_messages_out_total counter\n");
+        for (int i = 0; i < OUTBOUND.length; i++) {
+            sb.append("c8_messages_out_total{type=\"").append(OUTBOUND[i]).append("\"} ").append(messagesOut[i].sum()).append('\n');
+        }
+        moveLatency.writeTo(sb, "c8_move_latency_seconds", "Time from a PLAY arriving to the table finishing it, mailbox wait included.");
+        broadcastTime.writeTo(sb, "c8_broadcast_seconds", "Time to fan one message out to every player at a table.");
+        counter(sb, "c8_broadcast_recipients_total", "Messages queued by broadcasts.", broadcastRecipients.sum());
+        for (Gauge g : gauges) gauge(sb, g.name, g.help, g.value.getAsLong());
+        return sb.toString();
+    }
+
+    @Override
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    @Override
+    public long getConnectionsActive() {
+        return connectionsActive.sum();
+    }
+
+    @Override
+    public long getMessagesIn() {
+        return total(messagesIn);
+    }
+
+    @Override
+    public long getMessagesOut() {
+        return total(messagesOut);
+    }
+
+    @Override
+    public Map<String, Long> getMessagesInByType() {
+        return byName(COMMANDS, messagesIn);
+    }
+
+    @Override
+    public Map<String, Long> getMessagesOutByType() {
+        return byName(OUTBOUND, messagesOut);
+    }
+
+    @Override
+    public long getMoves() {
+        return moveLatency.count();
+    }
+
+    @Override
+    public long getMoveLatencyP50Micros() {
+        return moveLatency.quantileBoundNanos(0.50) / 1000;
+    }
+
+    @Override
+    public long getMoveLatencyP99Micros() {
+        return moveLatency.quantileBoundNanos(0.99) / 1000;
+    }
+
+    @Override
+    public long getBroadcasts() {
+        return broadcastTime.count();
+    }
+
+    @Override
+    public long getBroadcastP99Micros() {
+        return broadcastTime.quantileBoundNanos(0.99) / 1000;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Gauge g : gauges) values.put(g.name, g.value.getAsLong());
+        return values;
+    }
+
+    /** Maps a server message to its OUTBOUND slot by the token before the first colon. */
+    static int outboundType(String message) {
+        for (int i = 0; i < OUTBOUND.length - 1; i++) {
+            String type = OUTBOUND[i];
+            if (message.startsWith(type) && (message.length() == type.length() || message.charAt(type.length()) == ':')) return i;
+        }
+        return OUTBOUND.length - 1;
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    private static long total(LongAdder[] adders) {
+        long total = 0;
+        for (LongAdder adder : adders) total += adder.sum();
+        return total;
+    }
+
+    private static Map<String, Long> byName(String[] names, LongAdder[] adders) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) values.put(names[i], adders[i].sum());
+        return values;
+    }
+}
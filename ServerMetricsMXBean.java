@@ -0,0 +1,28 @@
+import java.util.Map;
+
+/** JMX view of ServerMetrics, registered as CrazyEights:type=ServerMetrics. */
+public interface ServerMetricsMXBean {
+    long getConnectionsOpened();
+
+    long getConnectionsActive();
+
+    long getMessagesIn();
+
+    long getMessagesOut();
+
+    Map<String, Long> getMessagesInByType();
+
+    Map<String, Long> getMessagesOutByType();
+
+    long getMoves();
+
+    long getMoveLatencyP50Micros();
+
+    long getMoveLatencyP99Micros();
+
+    long getBroadcasts();
+
+    long getBroadcastP99Micros();
+
+    Map<String, Long> getGauges();
+}
@@ -0,0 +1,124 @@
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.random.RandomGenerator;
+
+/**
+ * Produces shuffled decks of card ids with an in-place Fisher-Yates shuffle.
+ * The random source is pluggable; a seeded engine without a background
+ * executor always yields the same sequence of decks. With an executor the
+ * engine keeps up to poolSize decks shuffled ahead of time so dealing only
+ * has to take one off the pool.
+ */
+public class ShuffleEngine {
+    private final RandomGenerator rng;
+    private final int decks;
+    private final Executor background;
+    private final int poolSize;
+    private final ArrayDeque<int[]> ready = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean refilling = false;
+
+    public ShuffleEngine() {
+        this(new SplittableRandom());
+    }
+
+    public ShuffleEngine(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    public ShuffleEngine(RandomGenerator rng) {
+        this(rng, 1, null, 0);
+    }
+
+    public ShuffleEngine(RandomGenerator rng, int decks, Executor background, int poolSize) {
+        if (decks < 1 || decks > Hand.MAX_DECKS) throw new IllegalArgumentException("Decks: " + decks);
+        this.rng = rng;
+        this.decks = decks;
+        this.background = background;
+        this.poolSize = poolSize;
+    }
+
+    public static void shuffle(int[] cards, int length, RandomGenerator rng) {
+        for (int i = length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int temp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = temp;
+        }
+    }
+
+    /** Returns a freshly shuffled deck owned by the caller. */
+    public int[] nextDeck() {
+        int[] deck;
+        lock.lock();
+        try {
+            deck = ready.poll();
+            if (deck == null) deck = generate();
+        } finally {
+            lock.unlock();
+        }
+        if (background != null) refillIfLow();
+        return deck;
+    }
+
+    /** Shuffles up to count decks ahead of time on the background executor. */
+    public void pregenerate(int count) {
+        if (background == null) return;
+        background.execute(() -> {
+            for (int i = 0; i < count; i++) {
+                lock.lock();
+                try {
+                    if (ready.size() >= Math.max(poolSize, count)) return;
+                    ready.add(generate());
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    public int available() {
+        lock.lock();
+        try {
+            return ready.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refillIfLow() {
+        lock.lock();
+        try {
+            if (refilling || ready.size() > poolSize / 2) return;
+            refilling = true;
+        } finally {
+            lock.unlock();
+        }
+        background.execute(() -> {
+            try {
+                while (true) {
+                    lock.lock();
+                    try {
+                        if (ready.size() >= poolSize) return;
+                        ready.add(generate());
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            } finally {
+                lock.lock();
+                refilling = false;
+                lock.unlock();
+            }
+        });
+    }
+
+    private int[] generate() {
+        int[] deck = new int[decks * Card.DECK_SIZE];
+        for (int i = 0; i < deck.length; i++) deck[i] = i;
+        shuffle(deck, deck.length, rng);
+        return deck;
+    }
+}
@@ -0,0 +1,258 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays complete Crazy Eights games offline through GameState, spread over
+ * every core with fork/join. Usage:
+ * java Simulator [games] [players] [seed] [--strategies=lowest,eightslast,points,random]
+ *
+ * Game i is shuffled by a generator seeded from (seed, i) and the results
+ * are only ever summed, so the same arguments print the same report however
+ * the work is split. Strategies are dealt to seats round-robin and rotated
+ * one seat every game, so each gets the same share of every seat.
+ *
+ * A player with nothing to play draws until something fits; with the deck
+ * gone they pass, and a full round of passes ends the game blocked.
+ */
+public class Simulator {
+    static final int LOWEST = 0;
+    static final int EIGHTS_LAST = 1;
+    static final int POINTS = 2;
+    static final int RANDOM = 3;
+    private static final String[] STRATEGY_NAMES = {"lowest", "eightslast", "points", "random"};
+    private static final long BATCH = 1024;
+
+    private final int players;
+    private final long seed;
+    private final int[] strategies;
+
+    public Simulator(int players, long seed, int[] strategies) {
+        if (players < 2 || players > GameTable.MAX_PLAYERS) throw new IllegalArgumentException("Players: " + players);
+        if (strategies.length == 0) throw new IllegalArgumentException("No strategies");
+        this.players = players;
+        this.seed = seed;
+        this.strategies = strategies.clone();
+    }
+
+    public static void main(String[] args) {
+        long games = 1_000_000;
+        int players = 4;
+        long seed = 42;
+        int[] strategies = {LOWEST};
+        int positional = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--strategies=")) {
+                String[] names = arg.substring(13).split(",");
+                strategies = new int[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    strategies[i] = Arrays.asList(STRATEGY_NAMES).indexOf(names[i]);
+                    if (strategies[i] < 0) {
+                        System.out.println("Unknown strategy " + names[i] + "; use " + String.join(", ", STRATEGY_NAMES));
+                        return;
+                    }
+                }
+            } else if (positional == 0) {
+                games = Long.parseLong(arg);
+                positional++;
+            } else if (positional == 1) {
+                players = Integer.parseInt(arg);
+                positional++;
+            } else {
+                seed = Long.parseLong(arg);
+            }
+        }
+
+        Simulator simulator = new Simulator(players, seed, strategies);
+        long start = System.nanoTime();
+        Stats stats = simulator.run(games);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games of %d players, seed %d, in %.2f s on %d threads: %.0f games/s%n",
+                games, players, seed, seconds, ForkJoinPool.commonPool().getParallelism(), games / seconds);
+        stats.print(strategies);
+    }
+
+    /** Plays games 0 to games - 1 on the common fork/join pool. */
+    public Stats run(long games) {
+        return ForkJoinPool.commonPool().invoke(new Batch(0, games));
+    }
+
+    private final class Batch extends RecursiveTask<Stats> {
+        private final long from;
+        private final long to;
+
+        Batch(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= BATCH) return playRange(from, to);
+            long mid = (from + to) >>> 1;
+            Batch left = new Batch(from, mid);
+            left.fork();
+            Stats right = new Batch(mid, to).compute();
+            return right.add(left.join());
+        }
+    }
+
+    private Stats playRange(long from, long to) {
+        Stats stats = new Stats(players, STRATEGY_NAMES.length);
+        GameState game = new GameState(0);
+        int[] deck = new int[Card.DECK_SIZE];
+        SeededRandom rng = new SeededRandom();
+        for (long i = from; i < to; i++) {
+            rng.reseed(seed, i);
+            for (int c = 0; c < deck.length; c++) deck[c] = c;
+            ShuffleEngine.shuffle(deck, deck.length, rng);
+            play(game, deck, (int) (i % strategies.length), rng, stats);
+        }
+        return stats;
+    }
+
+    private void play(GameState game, int[] deck, int rotation, RandomGenerator rng, Stats stats) {
+        game.deal(players, deck, deck.length);
+        for (int seat = 0; seat < players; seat++) stats.strategyGames[strategyAt(seat, rotation)]++;
+        stats.games++;
+        int passes = 0;
+        while (true) {
+            int seat = game.advance();
+            int strategy = strategyAt(seat, rotation);
+            stats.turns++;
+            int card = choose(game, seat, strategy, rng);
+            while (card < 0 && game.tryDraw(seat) != Card.NONE) {
+                stats.draws++;
+                card = choose(game, seat, strategy, rng);
+            }
+            if (card < 0) {
+                if (++passes == players) {
+                    stats.blocked++;
+                    return;
+                }
+                continue;
+            }
+            passes = 0;
+            game.tryPlay(seat, card);
+            if (Card.isEight(card)) game.tryChooseSuit(seat, favouriteSuit(game.hand(seat), Card.suit(card)));
+            if (game.hasWon(seat)) {
+                stats.seatWins[seat]++;
+                stats.strategyWins[strategy]++;
+                stats.points += game.pointsOnTable();
+                return;
+            }
+        }
+    }
+
+    private int strategyAt(int seat, int rotation) {
+        return strategies[(seat + rotation) % strategies.length];
+    }
+
+    /** Returns the card seat plays under strategy, or -1 when nothing in hand fits. */
+    static int choose(GameState game, int seat, int strategy, RandomGenerator rng) {
+        Hand hand = game.hand(seat);
+        int top = game.topCard();
+        int suit = game.currentSuit;
+        if (strategy == LOWEST) return hand.firstPlayable(top, suit);
+        int chosen = -1;
+        int count = 0;
+        for (int card = hand.firstPlayable(top, suit); card >= 0; card = hand.nextCard(card + 1)) {
+            if (!Card.isPlayable(card, top, suit)) continue;
+            if (strategy == EIGHTS_LAST) {
+                if (!Card.isEight(card)) return card;
+                if (chosen < 0) chosen = card;
+            } else if (strategy == POINTS) {
+                if (chosen < 0 || Card.points(card) > Card.points(chosen)) chosen = card;
+            } else if (rng.nextInt(++count) == 0) {
+                chosen = card;
+            }
+        }
+        return chosen;
+    }
+
+    /** The suit held most often, keeping fallback on ties. */
+    static int favouriteSuit(Hand hand, int fallback) {
+        int[] counts = new int[Card.SUITS];
+        for (int card = hand.nextCard(0); card >= 0; card = hand.nextCard(card + 1)) counts[Card.suit(card)]++;
+        int best = fallback;
+        for (int suit = 0; suit < Card.SUITS; suit++) {
+            if (counts[suit] > counts[best]) best = suit;
+        }
+        return best;
+    }
+
+    /** Totals for a range of games; merging is plain addition so split order never matters. */
+    static final class Stats {
+        long games;
+        long turns;
+        long draws;
+        long blocked;
+        long points;
+        final long[] seatWins;
+        final long[] strategyWins;
+        final long[] strategyGames;
+
+        Stats(int seats, int strategies) {
+            seatWins = new long[seats];
+            strategyWins = new long[strategies];
+            strategyGames = new long[strategies];
+        }
+
+        Stats add(Stats other) {
+            games += other.games;
+            turns += other.turns;
+            draws += other.draws;
+            blocked += other.blocked;
+            points += other.points;
+            for (int i = 0; i < seatWins.length; i++) seatWins[i] += other.seatWins[i];
+            for (int i = 0; i < strategyWins.length; i++) {
+                strategyWins[i] += other.strategyWins[i];
+                strategyGames[i] += other.strategyGames[i];
+            }
+            return this;
+        }
+
+        void print(int[] strategies) {
+            long won = games - blocked;
+            System.out.printf("turns/game %.2f, draws/game %.2f, blocked %.3f%%, points/win %.2f%n",
+                    (double) turns / games, (double) draws / games, 100.0 * blocked / games,
+                    won == 0 ? 0 : (double) points / won);
+            StringBuilder seats = new StringBuilder("wins by seat:");
+            for (int seat = 0; seat < seatWins.length; seat++) {
+                seats.append(String.format(" %d=%.3f%%", seat, 100.0 * seatWins[seat] / games));
+            }
+            System.out.println(seats);
+            boolean[] shown = new boolean[STRATEGY_NAMES.length];
+            for (int strategy : strategies) {
+                if (shown[strategy]) continue;
+                shown[strategy] = true;
+                System.out.printf("%-10s win rate %.3f%% over %d seats%n", STRATEGY_NAMES[strategy],
+                        100.0 * strategyWins[strategy] / strategyGames[strategy], strategyGames[strategy]);
+            }
+        }
+    }
+
+    /**
+     * SplitMix64 that can be restarted at any game index without allocating,
+     * so a game's deck depends only on the seed and its index.
+     */
+    static final class SeededRandom implements RandomGenerator {
+        private long state;
+
+        void reseed(long seed, long index) {
+            state = mix(seed ^ mix(index));
+        }
+
+        @Override
+        public long nextLong() {
+            return mix(state += 0x9E3779B97F4A7C15L);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the server's connection modes on localhost. Usage:
+ * java ThreadModeBenchmark [connections] [seconds] [modes...]
+ * where modes are any of threads, virtual and nio (default: threads virtual).
+ * The connections are BotClients seated four to a table playing real games.
+ * Turn latency is measured from the PLAY (or SUIT) that ends a bot's turn
+ * until the server's broadcast of whose turn is next arrives back.
+ *
+ * Each mode runs in its own JVM, started with this JVM's java and class
+ * path, because the server's executors, tables and client registry are
+ * static and a finished run would otherwise keep serving next to the next.
+ *
+ * On runtimes without virtual threads the server runs "virtual" mode on
+ * platform threads, so that mode is skipped rather than reported as a
+ * second platform-thread run.
+ */
+public class ThreadModeBenchmark {
+    private static final int PLAYERS_PER_GAME = 4;
+
+    private static final String CHILD_FLAG = "--run=";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].startsWith(CHILD_FLAG)) {
+            run(args[0].substring(CHILD_FLAG.length()), Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            System.exit(0);
+        }
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String[] modes = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : new String[] {"threads", "virtual"};
+        int port = 4500;
+        System.out.printf("%-8s %12s %12s %15s %15s%n", "mode", "connections", "moves/sec", "turn p50 ms", "turn p99 ms");
+        for (String mode : modes) {
+            if (mode.equals("virtual") && !Server.virtualThreadsAvailable()) {
+                System.out.printf("%-8s skipped: virtual threads need Java 21+, running %s%n", mode, Runtime.version());
+                continue;
+            }
+            fork(mode, port++, connections, seconds);
+        }
+    }
+
+    private static void fork(String mode, int port, int connections, int seconds) throws IOException, InterruptedException {
+        System.out.flush();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ThreadModeBenchmark.class.getName(), CHILD_FLAG + mode,
+                String.valueOf(port), String.valueOf(connections), String.valueOf(seconds))
+                .inheritIO()
+                .start();
+        int status = child.waitFor();
+        if (status != 0) System.out.printf("%-8s failed: exit status %d%n", mode, status);
+    }
+
+    private static void run(String mode, int port, int connections, int seconds) throws Exception {
+        Thread server = new Thread(() -> Server.serve(port, mode), "server-" + mode);
+        server.setDaemon(true);
+        server.start();
+        Thread.sleep(500);
+
+        AtomicLong moves = new AtomicLong();
+        AtomicLong finished = new AtomicLong();
+        BotClient[] bots = new BotClient[connections];
+        Thread[] threads = new Thread[connections];
+        int held = 0;
+        seating:
+        while (held + 1 < connections) {
+            int first = held;
+            for (int seat = 0; seat < PLAYERS_PER_GAME && held < connections; seat++) {
+                try {
+                    bots[held] = new BotClient(new Socket("localhost", port), mode + "-" + held, seat == 0, moves, finished);
+                } catch (IOException e) {
+                    break seating;
+                }
+                threads[held] = new Thread(bots[held], "bot-" + mode + "-" + held);
+                threads[held].setDaemon(true);
+                threads[held].start();
+                held++;
+            }
+            for (int i = first; i < held; i++) bots[i].ready();
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (!bots[first].isStarted() && System.nanoTime() < deadline) Thread.sleep(1);
+        }
+
+        long startMoves = moves.get();
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long runMoves = moves.get() - startMoves;
+        for (int i = 0; i < held; i++) bots[i].close();
+        for (int i = 0; i < held; i++) threads[i].join(2000);
+
+        long[][] perBot = new long[held][];
+        int total = 0;
+        for (int i = 0; i < held; i++) {
+            perBot[i] = bots[i].turnLatencies();
+            total += perBot[i].length;
+        }
+        long[] latencies = new long[total];
+        int pos = 0;
+        for (long[] samples : perBot) {
+            System.arraycopy(samples, 0, latencies, pos, samples.length);
+            pos += samples.length;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-8s %12d %12.0f %15.3f %15.3f%n", mode, held,
+                runMoves / elapsed, percentile(latencies, 0.50), percentile(latencies, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,94 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** DLList and the custom ArrayList under the operations the server leans on. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectionBenchmark {
+    @Param({"16", "1024"})
+    int size;
+
+    private DLList<Integer> dlList;
+    private ArrayList<Integer> arrayList;
+    private Integer[] values;
+
+    @Setup
+    public void setUp() {
+        values = new Integer[size];
+        dlList = new DLList<>();
+        arrayList = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+            dlList.add(values[i]);
+            arrayList.add(values[i]);
+        }
+    }
+
+    @Benchmark
+    public DLList<Integer> dlListAdd() {
+        DLList<Integer> list = new DLList<>();
+        for (Integer value : values) list.add(value);
+        return list;
+    }
+
+    @Benchmark
+    public Integer dlListGetMiddle() {
+        return dlList.get(size / 2);
+    }
+
+    @Benchmark
+    public boolean dlListRemoveAndAdd() {
+        Integer value = values[size / 2];
+        boolean removed = dlList.remove(value);
+        dlList.add(value);
+        return removed;
+    }
+
+    @Benchmark
+    public void dlListIterate(Blackhole bh) {
+        for (Integer value : dlList) bh.consume(value);
+    }
+
+    @Benchmark
+    public ArrayList<Integer> arrayListAdd() {
+        ArrayList<Integer> list = new ArrayList<>();
+        for (Integer value : values) list.add(value);
+        return list;
+    }
+
+    @Benchmark
+    public Integer arrayListGetMiddle() {
+        return arrayList.get(size / 2);
+    }
+
+    @Benchmark
+    public boolean arrayListRemoveAndAdd() {
+        Integer value = values[size / 2];
+        boolean removed = arrayList.remove(value);
+        arrayList.add(value);
+        return removed;
+    }
+
+    @Benchmark
+    public void arrayListIterate(Blackhole bh) {
+        for (Integer value : arrayList) bh.consume(value);
+    }
+}
@@ -0,0 +1,84 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-move hot path: shuffling, dealing, move validation and the hand
+ * message sent after every turn, in text and binary form.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+    private static final String[] PLAYERS = {"alice", "bob", "carol", "dave"};
+
+    private final SplittableRandom rng = new SplittableRandom(42);
+    private final ShuffleEngine shuffler = new ShuffleEngine(42);
+    private final int[] deck = new int[Card.DECK_SIZE];
+    private final GameState game = new GameState(1);
+    private final Hand hand = new Hand();
+    private final int[] candidates = new int[256];
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < deck.length; i++) deck[i] = i;
+        ShuffleEngine.shuffle(deck, deck.length, rng);
+        game.deal(PLAYERS, deck, deck.length);
+        for (int i = 0; i < 7; i++) hand.add(deck[i]);
+        for (int i = 0; i < candidates.length; i++) candidates[i] = rng.nextInt(Card.DECK_SIZE);
+    }
+
+    @Benchmark
+    public int[] shuffleInPlace() {
+        ShuffleEngine.shuffle(deck, deck.length, rng);
+        return deck;
+    }
+
+    @Benchmark
+    public int[] nextDeck() {
+        return shuffler.nextDeck();
+    }
+
+    @Benchmark
+    public GameState deal() {
+        game.deal(PLAYERS, deck, deck.length);
+        return game;
+    }
+
+    @Benchmark
+    public int validateMove() {
+        int card = candidates[next++ & (candidates.length - 1)];
+        return GameState.checkPlay(hand, card, deck[20], Card.suit(deck[20]));
+    }
+
+    @Benchmark
+    public int firstPlayable() {
+        return hand.firstPlayable(deck[20], Card.suit(deck[20]));
+    }
+
+    @Benchmark
+    public String handMessage() {
+        return "HAND:" + Server.ClientHandler.formatHand(hand);
+    }
+
+    @Benchmark
+    public byte[] handMessageBinary() {
+        return BinaryProtocol.encodeServerMessage("HAND:" + Server.ClientHandler.formatHand(hand));
+    }
+}
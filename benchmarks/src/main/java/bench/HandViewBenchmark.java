@@ -0,0 +1,79 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/** Hand updates and repaints of the client's HandView, drawn into an offscreen image. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class HandViewBenchmark {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 150;
+
+    @Param({"8", "52"})
+    int handSize;
+
+    private HandView view;
+    private Hand hand;
+    private Graphics2D full;
+    private Graphics2D dirty;
+
+    @Setup
+    public void setUp() {
+        view = new HandView();
+        view.setSize(WIDTH, HEIGHT);
+        hand = new Hand();
+        for (int i = 0; i < handSize; i++) hand.add(i * Card.DECK_SIZE / handSize);
+        view.setHand(hand);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+        full = image.createGraphics();
+        dirty = image.createGraphics();
+        dirty.clipRect(WIDTH / 2, 0, CardAtlas.CARD_WIDTH, HEIGHT);
+        view.paint(full);
+    }
+
+    @TearDown
+    public void tearDown() {
+        full.dispose();
+        dirty.dispose();
+    }
+
+    @Benchmark
+    public int drawAndPlay() {
+        hand.add(Card.DECK_SIZE - 1);
+        view.setHand(hand);
+        hand.remove(Card.DECK_SIZE - 1);
+        view.setHand(hand);
+        return view.cardCount();
+    }
+
+    @Benchmark
+    public HandView paintAll() {
+        view.paint(full);
+        return view;
+    }
+
+    @Benchmark
+    public HandView paintDirtyRegion() {
+        view.paint(dirty);
+        return view;
+    }
+}
@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class GameJournalTest {
+    @TempDir
+    Path dir;
+
+    /** A hand of five consecutive ranks of one suit, starting at rank from. */
+    private static int[] lowRun(int suit, int from) {
+        int[] cards = new int[GameState.CARDS_PER_HAND];
+        for (int i = 0; i < cards.length; i++) cards[i] = GameStateTest.card(from + i, suit);
+        return cards;
+    }
+
+    private static void assertSameGame(GameState expected, GameState actual) {
+        assertEquals(expected.tableId, actual.tableId);
+        assertArrayEquals(expected.players, actual.players);
+        for (int seat = 0; seat < expected.seatCount(); seat++) {
+            assertArrayEquals(GameStateTest.cards(expected.hand(seat)), GameStateTest.cards(actual.hand(seat)), "seat " + seat);
+        }
+        assertEquals(expected.deckSize, actual.deckSize);
+        assertArrayEquals(expected.discard.toArray(), actual.discard.toArray());
+        assertEquals(expected.currentSuit, actual.currentSuit);
+        assertEquals(expected.currentPlayer, actual.currentPlayer);
+        assertEquals(expected.waitingForSuitSeat, actual.waitingForSuitSeat);
+        assertEquals(expected.waitingForSuitCard, actual.waitingForSuitCard);
+    }
+
+    @Test
+    void recoverRebuildsGamesStillInProgress() throws Exception {
+        Path file = dir.resolve("games.journal");
+        StringBuilder problems = new StringBuilder();
+        GameJournal journal = GameJournal.open(file, problems::append);
+        String[] names = {"A", "B", "C"};
+        int[] deck = GameStateTest.orderedDeck();
+        GameState live = new GameState(1);
+        journal.deal(1, names, deck, deck.length);
+        live.deal(names, deck, deck.length);
+
+        // table 2 finishes and must not come back
+        int[] shortDeck = GameStateTest.stacked(new int[0], GameStateTest.card(7, GameStateTest.HEARTS),
+                lowRun(GameStateTest.HEARTS, 2), lowRun(GameStateTest.SPADES, 2));
+        GameState finished = new GameState(2);
+        finished.deal(new String[] {"D", "E"}, shortDeck, shortDeck.length);
+        journal.deal(2, new String[] {"D", "E"}, shortDeck, shortDeck.length);
+        for (int c = finished.hand(0).nextCard(0); c >= 0; c = finished.hand(0).nextCard(0)) {
+            assertEquals(GameState.OK, finished.tryPlay(0, c));
+            journal.play(2, 0, c);
+        }
+        journal.win(2, 0, finished.pointsOnTable());
+
+        live.turn(0);
+        journal.turn(1, 0);
+        int drawn = live.tryDraw(0);
+        journal.draw(1, 0, drawn);
+        live.advance();
+        journal.turn(1, 1);
+        // the ordered deck deals B the eight of spades onto a queen of clubs
+        int eight = GameStateTest.card(8, GameStateTest.SPADES);
+        assertEquals(GameState.OK, live.tryPlay(1, eight));
+        journal.play(1, 1, eight);
+        assertEquals(GameState.OK, live.tryChooseSuit(1, GameStateTest.DIAMONDS));
+        journal.suit(1, 1, GameStateTest.DIAMONDS);
+        live.turn(2);
+        journal.turn(1, 2);
+        assertFalse(live.leave(0));
+        journal.leave(1, 0);
+        journal.close();
+
+        List<GameState> recovered = GameJournal.recover(file, problems::append);
+        assertEquals("", problems.toString());
+        assertEquals(1, recovered.size());
+        assertSameGame(live, recovered.get(0));
+    }
+
+    @Test
+    void restoreRecordRoundTripsAPendingSuitChoice() throws Exception {
+        Path file = dir.resolve("games.journal");
+        int eight = GameStateTest.card(8, GameStateTest.DIAMONDS);
+        int[] hand = lowRun(GameStateTest.HEARTS, 2);
+        hand[hand.length - 1] = eight;
+        int[] deck = GameStateTest.stacked(new int[] {GameStateTest.card(12, GameStateTest.CLUBS)}, GameStateTest.card(7, GameStateTest.HEARTS),
+                hand, lowRun(GameStateTest.SPADES, 2));
+        GameState state = new GameState(7);
+        state.deal(new String[] {"A", "B"}, deck, deck.length);
+        state.turn(0);
+        assertEquals(GameState.OK, state.tryPlay(0, eight));
+
+        GameJournal journal = GameJournal.open(file, message -> { });
+        journal.restore(state);
+        journal.close();
+
+        List<GameState> recovered = GameJournal.recover(file, message -> { });
+        assertEquals(1, recovered.size());
+        assertSameGame(state, recovered.get(0));
+    }
+}
@@ -0,0 +1,205 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameStateTest {
+    static final int HEARTS = 0, DIAMONDS = 1, CLUBS = 2, SPADES = 3;
+
+    static int card(int rank, int suit) {
+        return Card.of(rank - 2, suit);
+    }
+
+    /** A deck that deals hands[0] to seat 0 and so on, turns up top, then draws stock from its end. */
+    static int[] stacked(int[] stock, int top, int[]... hands) {
+        int[] deck = new int[stock.length + 1 + hands.length * GameState.CARDS_PER_HAND];
+        int n = 0;
+        for (int c : stock) deck[n++] = c;
+        deck[n++] = top;
+        for (int seat = hands.length - 1; seat >= 0; seat--) {
+            for (int c : hands[seat]) deck[n++] = c;
+        }
+        return deck;
+    }
+
+    static GameState dealt(int[] deck, String... names) {
+        GameState game = new GameState(1);
+        game.deal(names, deck, deck.length);
+        return game;
+    }
+
+    static int[] orderedDeck() {
+        int[] deck = new int[Card.DECK_SIZE];
+        for (int i = 0; i < deck.length; i++) deck[i] = i;
+        return deck;
+    }
+
+    static int[] cards(Hand hand) {
+        int[] cards = new int[hand.size()];
+        int n = 0;
+        for (int c = hand.nextCard(0); c >= 0; c = hand.nextCard(c + 1)) cards[n++] = c;
+        return cards;
+    }
+
+    private static final int[] LOW_HEARTS = {card(2, HEARTS), card(3, HEARTS), card(4, HEARTS), card(5, HEARTS), card(6, HEARTS)};
+    private static final int[] LOW_SPADES = {card(2, SPADES), card(3, SPADES), card(4, SPADES), card(5, SPADES), card(6, SPADES)};
+    private static final int[] MIXED = {card(9, CLUBS), card(10, SPADES), card(8, DIAMONDS), card(14, CLUBS), card(13, SPADES)};
+
+    private static GameState twoPlayers(int... stock) {
+        return dealt(stacked(stock, card(7, HEARTS), LOW_HEARTS, MIXED), "A", "B");
+    }
+
+    @Test
+    void dealGivesEverySeatAHandAndTurnsUpTheFirstDiscard() {
+        GameState game = dealt(orderedDeck(), "A", "B", "C");
+        for (int seat = 0; seat < 3; seat++) assertEquals(GameState.CARDS_PER_HAND, game.hand(seat).size());
+        assertEquals(Card.DECK_SIZE - 3 * GameState.CARDS_PER_HAND - 1, game.deckSize);
+        assertEquals(game.deckSize, game.topCard());
+        assertEquals(Card.suit(game.topCard()), game.currentSuit);
+        assertEquals(-1, game.currentPlayer);
+        assertFalse(game.isWaitingForSuit());
+    }
+
+    @Test
+    void dealRefusesADeckTooSmallForEveryHand() {
+        GameState game = new GameState(1);
+        assertThrows(IllegalStateException.class, () -> game.deal(new String[] {"A", "B"}, orderedDeck(), 10));
+    }
+
+    @Test
+    void checkPlayMatchesSuitRankOrEight() {
+        Hand hand = new Hand();
+        for (int c : MIXED) hand.add(c);
+        int top = card(9, HEARTS);
+        assertEquals(GameState.OK, GameState.checkPlay(hand, card(9, CLUBS), top, HEARTS));
+        assertEquals(GameState.OK, GameState.checkPlay(hand, card(8, DIAMONDS), top, HEARTS));
+        assertEquals(GameState.OK, GameState.checkPlay(hand, card(10, SPADES), top, SPADES));
+        assertEquals(GameState.NOT_PLAYABLE, GameState.checkPlay(hand, card(14, CLUBS), top, HEARTS));
+        assertEquals(GameState.NOT_IN_HAND, GameState.checkPlay(hand, card(2, HEARTS), top, HEARTS));
+        assertEquals(GameState.NOT_IN_HAND, GameState.checkPlay(hand, Card.NONE, top, HEARTS));
+    }
+
+    @Test
+    void rejectedPlayLeavesTheStateAlone() {
+        GameState game = twoPlayers();
+        int top = game.topCard();
+        assertEquals(GameState.NOT_PLAYABLE, game.tryPlay(1, card(9, CLUBS)));
+        assertEquals(GameState.NOT_IN_HAND, game.tryPlay(1, card(2, HEARTS)));
+        assertEquals(top, game.topCard());
+        assertEquals(HEARTS, game.currentSuit);
+        assertArrayEquals(cards(handOf(MIXED)), cards(game.hand(1)));
+    }
+
+    @Test
+    void playMovesTheCardToTheDiscardPileAndSetsTheSuit() {
+        GameState game = twoPlayers();
+        assertEquals(GameState.OK, game.tryPlay(0, card(3, HEARTS)));
+        assertEquals(card(3, HEARTS), game.topCard());
+        assertFalse(game.hand(0).contains(card(3, HEARTS)));
+        assertEquals(HEARTS, game.currentSuit);
+    }
+
+    @Test
+    void eightWaitsForTheSuitChoice() {
+        GameState game = twoPlayers();
+        int eight = card(8, DIAMONDS);
+        assertEquals(GameState.OK, game.tryPlay(1, eight));
+        assertTrue(game.isWaitingForSuit());
+        assertEquals(1, game.waitingForSuitSeat);
+        assertEquals(eight, game.waitingForSuitCard);
+        assertEquals(GameState.SUIT_PENDING, game.tryPlay(0, card(2, HEARTS)));
+        assertEquals(GameState.NOT_CHOOSING, game.tryChooseSuit(0, CLUBS));
+        assertEquals(GameState.INVALID_SUIT, game.tryChooseSuit(1, Card.SUITS));
+        assertTrue(game.isWaitingForSuit());
+
+        assertEquals(GameState.OK, game.tryChooseSuit(1, CLUBS));
+        assertFalse(game.isWaitingForSuit());
+        assertEquals(CLUBS, game.currentSuit);
+        assertEquals(eight, game.topCard());
+        assertEquals(GameState.NOT_CHOOSING, game.tryChooseSuit(1, SPADES));
+        assertEquals(GameState.OK, game.tryPlay(1, card(9, CLUBS)));
+    }
+
+    @Test
+    void drawTakesTheTopOfTheStockUntilItRunsOut() {
+        GameState game = twoPlayers(card(12, DIAMONDS), card(11, DIAMONDS));
+        assertEquals(card(11, DIAMONDS), game.tryDraw(1));
+        assertEquals(card(12, DIAMONDS), game.tryDraw(0));
+        assertTrue(game.hand(1).contains(card(11, DIAMONDS)));
+        assertEquals(Card.NONE, game.tryDraw(0));
+        assertEquals(GameState.CARDS_PER_HAND + 1, game.hand(0).size());
+    }
+
+    @Test
+    void emptyingTheHandWinsThePointsLeftOnTheTable() {
+        GameState game = twoPlayers();
+        for (int i = 0; i < LOW_HEARTS.length - 1; i++) {
+            assertEquals(GameState.OK, game.tryPlay(0, LOW_HEARTS[i]));
+            assertFalse(game.hasWon(0));
+        }
+        assertThrows(IllegalStateException.class, () -> game.win(0));
+        assertEquals(GameState.OK, game.tryPlay(0, LOW_HEARTS[LOW_HEARTS.length - 1]));
+        assertTrue(game.hasWon(0));
+        game.win(0);
+        int expected = 0;
+        for (int c : MIXED) expected += Card.points(c);
+        assertEquals(expected, game.pointsOnTable());
+    }
+
+    @Test
+    void nextSeatLeavingKeepsTheTurn() {
+        GameState game = dealt(orderedDeck(), "A", "B", "C");
+        game.turn(0);
+        assertFalse(game.leave(1));
+        assertArrayEquals(new String[] {"A", "C"}, game.players);
+        assertEquals(0, game.currentPlayer);
+        assertEquals(1, game.advance());
+    }
+
+    @Test
+    void currentSeatLeavingPassesTheTurnOn() {
+        GameState game = dealt(orderedDeck(), "A", "B", "C");
+        game.turn(1);
+        assertTrue(game.leave(1));
+        assertEquals("C", game.players[game.advance()]);
+
+        game = dealt(orderedDeck(), "A", "B", "C");
+        game.turn(0);
+        assertTrue(game.leave(0));
+        assertEquals("B", game.players[game.advance()]);
+    }
+
+    @Test
+    void earlierSeatLeavingShiftsTheTurnAndHandsWithTheSeats() {
+        GameState game = dealt(orderedDeck(), "A", "B", "C");
+        int[] cHand = cards(game.hand(2));
+        game.turn(2);
+        assertFalse(game.leave(0));
+        assertEquals("C", game.players[game.currentPlayer]);
+        assertArrayEquals(cHand, cards(game.hand(1)));
+    }
+
+    @Test
+    void leavingWhileChoosingASuitCancelsTheChoice() {
+        GameState game = dealt(stacked(new int[0], card(7, HEARTS), LOW_HEARTS, MIXED, LOW_SPADES), "A", "B", "C");
+        game.turn(1);
+        assertEquals(GameState.OK, game.tryPlay(1, card(8, DIAMONDS)));
+        assertTrue(game.leave(1));
+        assertFalse(game.isWaitingForSuit());
+
+        game = dealt(stacked(new int[0], card(7, HEARTS), LOW_HEARTS, LOW_SPADES, MIXED), "A", "B", "C");
+        game.turn(2);
+        assertEquals(GameState.OK, game.tryPlay(2, card(8, DIAMONDS)));
+        assertFalse(game.leave(0));
+        assertEquals(1, game.waitingForSuitSeat);
+    }
+
+    private static Hand handOf(int[] cards) {
+        Hand hand = new Hand();
+        for (int c : cards) hand.add(c);
+        return hand;
+    }
+}
@@ -0,0 +1,37 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreStoreTest {
+    private static final int USERS = 3000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compactionBatchesRecordsIntoFewWrites() throws Exception {
+        Path file = dir.resolve("scores.dat");
+        ScoreTable table = new ScoreTable(10);
+        ScoreStore store = ScoreStore.open(file, table, message -> { });
+        for (int i = 0; i < USERS; i++) table.set("user-" + i, i);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < USERS; i++) table.add("user-" + i, 1);
+        }
+        store.close();
+
+        // 9000 records for 3000 users passes the 2x threshold, so at least one compaction ran;
+        // at about 20 bytes per record the snapshot fits in one or two 64 KiB buffers
+        assertTrue(store.lastCompactionWrites() > 0, "no compaction ran");
+        assertTrue(store.lastCompactionWrites() <= 4,
+                "compaction made " + store.lastCompactionWrites() + " writes for " + USERS + " records");
+
+        ScoreTable reloaded = new ScoreTable(10);
+        ScoreStore.open(file, reloaded, message -> { }).close();
+        assertEquals(USERS, reloaded.size());
+        for (int i = 0; i < USERS; i++) assertEquals(i + 2, reloaded.get("user-" + i));
+    }
+}